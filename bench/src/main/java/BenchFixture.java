@@ -0,0 +1,451 @@
+import bench.Fixture;
+import jade.core.AID;
+import jade.lang.acl.ACLMessage;
+
+import javax.swing.SwingUtilities;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+
+// Drives the game classes for the JMH benchmarks. The agents are the shipped
+// GameSession and PlayerLogic, run in-process: each gets a Port that queues
+// what it sends, and deliver() hands the queue to the receivers until it is
+// empty, then runs their deadlines, as LiteRuntime would. Messages to the
+// host go to the session in play, if they belong to it.
+//
+// The handler benchmarks play one fixed session ("trade") whose players are
+// honest traders: the tokens only change at a host, which this session has
+// none of, and a peer never comes to refuse the blocked player, so every
+// call handles the same messages.
+public class BenchFixture implements Fixture {
+
+    private static final String HOST = "Host";
+    private static final String TRADE_SESSION = "trade";
+
+    private int gridSize, numPlayers, tokens;
+    private long seed;
+
+    private GameEngine engine;
+    private GameEngine playing;
+    private Board board;
+    private List<PlayerState> players;
+    private Map<String, PlayerState> byName;
+    private List<String> otherPlayers;
+    private final SplittableRandom rand = new SplittableRandom(7);
+
+    private PlayerState mover;
+    private int moveX, moveY, moveColor;
+    private byte[] moveRequest;
+
+    private PlayerState blocked;
+    private int blockedColor;
+    private byte[] blockedRequest;
+
+    private PlayerState responder;
+
+    // What the agents sent, not delivered yet
+    private final ArrayDeque<ACLMessage> outbox = new ArrayDeque<>();
+    private Port host;
+    private List<String> names;
+
+    // Players of the sessions gameBehaviourTurn hosts, one after the other, with -Dgame.strategy
+    private Map<String, PlayerLogic> sessionPlayers;
+    private GameSession session;
+    private long sessionSeed;
+
+    // Players of the handler benchmarks' session, and the messages they are sent
+    private Map<String, PlayerLogic> traders;
+    private ACLMessage moveTurn, blockedTurn, cfp, reject;
+
+    private int turnIndex;
+    private GameMessage.TurnIntent turnIntent;
+    private byte[] turnIntentBytes;
+    private GameMessage.Init init;
+
+    private GameGUI gui;
+    private SnapshotExchange snapshots;
+    private int guiStep;
+
+    private VectorEnv env;
+    private int[][] envActions;
+    private float[] envObs;
+    private float[] envRewards;
+    private boolean[] envDones;
+    private int envStep;
+
+    private ExchangeBook book;
+    private int[] askSeats, askColors, orderSeats, orderNeeds, orderOffers, orderPaid;
+
+    @Override
+    public void setup(int gridSize, int players, int tokens, long seed) {
+        this.gridSize = gridSize;
+        this.numPlayers = players;
+        this.tokens = tokens;
+        this.seed = seed;
+
+        engine = newEngine(seed);
+        playing = newEngine(seed + 1);
+        board = engine.getBoard();
+        this.players = engine.getPlayers();
+        byName = new HashMap<>();
+        for (PlayerState p : this.players) byName.put(p.getName(), p);
+
+        // Player 0 can always move; player 1 is always blocked and trades with player 0's peers
+        mover = this.players.get(0);
+        moveX = GameEngine.nextX(mover.getX(), mover.getY(), mover.getGoalX(), mover.getGoalY());
+        moveY = GameEngine.nextY(mover.getX(), mover.getY(), mover.getGoalX(), mover.getGoalY());
+        moveColor = board.color(moveX, moveY);
+        mover.addToken(moveColor);
+        moveRequest = GameCodec.encode(new GameMessage.TurnRequest(moveColor));
+
+        blocked = this.players.get(1);
+        int bx = GameEngine.nextX(blocked.getX(), blocked.getY(), blocked.getGoalX(), blocked.getGoalY());
+        int by = GameEngine.nextY(blocked.getX(), blocked.getY(), blocked.getGoalX(), blocked.getGoalY());
+        blockedColor = board.color(bx, by);
+        while (blocked.removeToken(blockedColor)) {
+            // drop every copy so the move always fails
+        }
+        blockedRequest = GameCodec.encode(new GameMessage.TurnRequest(blockedColor));
+
+        otherPlayers = new ArrayList<>();
+        for (PlayerState p : this.players) {
+            if (p != blocked) otherPlayers.add(p.getName());
+        }
+        // Spread some trade and betrayal history so the trust scan has entries to compare
+        for (String name : otherPlayers) {
+            int n = rand.nextInt(3);
+            for (int i = 0; i < n; i++) blocked.recordTrade(name);
+            if (rand.nextInt(2) == 0) blocked.recordBetrayedBy(name);
+        }
+        for (String name : otherPlayers) {
+            byName.get(name).addToken(blockedColor);
+        }
+
+        responder = this.players.get(2 % this.players.size());
+        responder.addToken(blockedColor);
+
+        turnIntent = GameMessage.TurnIntent.move(GameMessage.TurnIntent.direction(moveX - mover.getX(), moveY - mover.getY()));
+        turnIntentBytes = GameCodec.encode(turnIntent);
+
+        names = new ArrayList<>();
+        for (PlayerState p : this.players) names.add(p.getName());
+        init = new GameMessage.Init(mover.getX(), mover.getY(), mover.getGoalX(), mover.getGoalY(), mover.getTokens(), names);
+
+        host = new Port(HOST);
+        sessionPlayers = spawnPlayers(null);
+        sessionSeed = seed + 2;
+        startSession();
+
+        // The trade session: every player gets its state above
+        SplittableRandom traderRand = new SplittableRandom(seed);
+        traders = spawnPlayers(() -> honest(traderRand));
+        for (PlayerState p : this.players) {
+            traders.get(p.getName()).handle(message(ACLMessage.INFORM, HOST, "init",
+                    new GameMessage.Init(p.getX(), p.getY(), p.getGoalX(), p.getGoalY(), p.getTokens(), names)));
+        }
+        moveTurn = message(ACLMessage.REQUEST, HOST, "your-turn", new GameMessage.TurnRequest(moveColor, moveX, moveY));
+        moveTurn.setReplyWith("turn-1");
+        blockedTurn = message(ACLMessage.REQUEST, HOST, "your-turn", new GameMessage.TurnRequest(blockedColor, bx, by));
+        blockedTurn.setReplyWith("turn-2");
+        cfp = message(ACLMessage.CFP, blocked.getName(), "negotiation-bench", new GameMessage.Proposal(blockedColor, blocked.selectOfferColor()));
+        cfp.setReplyWith(cfp.getConversationId());
+        reject = message(ACLMessage.REJECT_PROPOSAL, blocked.getName(), "negotiation-bench", new GameMessage.ProposalReply(-1));
+        outbox.clear();
+    }
+
+    // One PlayerLogic per player name; null strategies: -Dgame.strategy
+    private Map<String, PlayerLogic> spawnPlayers(Supplier<PlayerStrategy> strategies) {
+        Map<String, PlayerLogic> logics = new HashMap<>();
+        for (String name : names) {
+            PlayerLogic logic = strategies == null ? new PlayerLogic() : new PlayerLogic(strategies);
+            logic.start(new Port(name));
+            logics.put(name, logic);
+        }
+        return logics;
+    }
+
+    // The heuristic, except that it always pays
+    private static PlayerStrategy honest(RandomGenerator rand) {
+        PlayerStrategy heuristic = new HeuristicStrategy(rand);
+        return new PlayerStrategy() {
+            @Override
+            public int offerColor(PlayerState self, int need, List<String> peers) {
+                return heuristic.offerColor(self, need, peers);
+            }
+
+            @Override
+            public String choosePartner(PlayerState self, List<String> candidates) {
+                return heuristic.choosePartner(self, candidates);
+            }
+
+            @Override
+            public boolean paysHonestly(PlayerState self, String partner, int offer) {
+                return true;
+            }
+        };
+    }
+
+    // A message of the trade session, as its sender would send it
+    private ACLMessage message(int performative, String sender, String conversation, GameMessage content) {
+        ACLMessage msg = new ACLMessage(performative);
+        msg.setSender(new AID(sender, AID.ISLOCALNAME));
+        msg.setConversationId(ConversationId.of(TRADE_SESSION, conversation));
+        GameCodec.write(msg, content);
+        return msg;
+    }
+
+    // The next game for gameBehaviourTurn, dealt to its players
+    private void startSession() {
+        long s = sessionSeed++;
+        session = new GameSession("g" + s, newEngine(s), names);
+        session.start(host);
+        deliver(sessionPlayers);
+    }
+
+    // Hand every queued message to its receivers, then run the players' deadlines, until nothing
+    // is left to send; returns the messages delivered
+    private int deliver(Map<String, PlayerLogic> logics) {
+        int delivered = 0;
+        do {
+            ACLMessage msg;
+            while ((msg = outbox.poll()) != null) {
+                Iterator<?> receivers = msg.getAllReceiver();
+                while (receivers.hasNext()) {
+                    String to = ((AID) receivers.next()).getLocalName();
+                    delivered++;
+                    if (to.equals(HOST)) {
+                        toHost(msg);
+                    } else {
+                        PlayerLogic logic = logics.get(to);
+                        if (logic != null) logic.handle(msg);
+                    }
+                }
+            }
+            long now = System.currentTimeMillis();
+            for (PlayerLogic logic : logics.values()) logic.expire(now);
+        } while (!outbox.isEmpty());
+        return delivered;
+    }
+
+    // Route to the session in play, as HostLogic does; the trade session has no host
+    private void toHost(ACLMessage msg) {
+        String conversation = msg.getConversationId();
+        if (!session.getId().equals(ConversationId.sessionOf(conversation))) return;
+        if ("trade-offer".equals(ConversationId.baseOf(conversation))) {
+            session.offer(msg);
+        } else if (session.isAwaiting()) {
+            session.accept(host, msg);
+        }
+    }
+
+    // An agent's side of the platform: what it sends is queued for deliver()
+    private final class Port implements AgentPort {
+        private final String name;
+        private final AID aid;
+
+        Port(String name) {
+            this.name = name;
+            this.aid = new AID(name, AID.ISLOCALNAME);
+        }
+
+        @Override
+        public String getLocalName() {
+            return name;
+        }
+
+        @Override
+        public void send(ACLMessage msg) {
+            msg.setSender(aid);
+            outbox.add(msg);
+        }
+
+        @Override
+        public void doDelete() {
+        }
+    }
+
+    private GameEngine newEngine(long s) {
+        GameEngine e = new GameEngine(new SplittableRandom(s), gridSize, gridSize);
+        e.setup(numPlayers, tokens);
+        return e;
+    }
+
+    @Override
+    public int gameBehaviourTurn() {
+        if (session.isOver()) {
+            session.finish(host);
+            deliver(sessionPlayers);
+            startSession();
+        }
+        session.sendTurn(host);
+        int delivered = deliver(sessionPlayers);
+        // Every peer answers a call at once, so only a player that sent nothing leaves the turn open
+        if (session.isAwaiting()) {
+            session.timeout(host);
+            delivered += deliver(sessionPlayers);
+        }
+        return delivered;
+    }
+
+    @Override
+    public int engineTurn() {
+        if (!playing.playTurn()) {
+            playing = newEngine(++seed);
+        }
+        return playing.getTurnCount();
+    }
+
+    @Override
+    public int handleTurnMove() {
+        traders.get(mover.getName()).handle(moveTurn);
+        int sent = outbox.size();
+        outbox.clear();
+        return sent;
+    }
+
+    @Override
+    public int handleTurnTrade() {
+        traders.get(blocked.getName()).handle(blockedTurn);
+        return deliver(traders);
+    }
+
+    @Override
+    public int handleProposal() {
+        PlayerLogic logic = traders.get(responder.getName());
+        logic.handle(cfp);
+        // Releases the token the bid reserved, so every call bids again
+        logic.handle(reject);
+        int sent = outbox.size();
+        outbox.clear();
+        return sent;
+    }
+
+    @Override
+    public int planPath() {
+        PlayerState p = players.get(turnIndex);
+        turnIndex = (turnIndex + 1) % players.size();
+        return engine.getPlanner().plannedTrades(p.getX(), p.getY(), p.getGoalX(), p.getGoalY(), p.getTokens());
+    }
+
+    @Override
+    public int selectOfferToken() {
+        return mover.selectOfferColor();
+    }
+
+    @Override
+    public Object selectPlayerToTrade() {
+        return blocked.selectPlayerToTrade(otherPlayers);
+    }
+
+    @Override
+    public byte[] encodeTurnIntent() {
+        return GameCodec.encode(turnIntent);
+    }
+
+    @Override
+    public Object decodeTurnIntent() {
+        return GameCodec.decode(turnIntentBytes);
+    }
+
+    @Override
+    public String encodeLegacyTurnIntent() {
+        return GameCodec.toLegacyText(turnIntent);
+    }
+
+    @Override
+    public Object encodeDecodeInit() {
+        return GameCodec.decode(GameCodec.encode(init));
+    }
+
+    @Override
+    public void setupGui(int gridSize, int players, long seed) throws Exception {
+        this.gridSize = gridSize;
+        this.numPlayers = players;
+        this.tokens = GameConfig.TOKENS_PER_PLAYER;
+        engine = newEngine(seed);
+        board = engine.getBoard();
+        this.players = engine.getPlayers();
+        snapshots = new SnapshotExchange();
+        snapshots.publish(0, this.players);
+        SwingUtilities.invokeAndWait(() -> gui = new GameGUI(board, snapshots, new TurnPacer(0)));
+        SwingUtilities.invokeAndWait(() -> gui.renderLatest());
+    }
+
+    @Override
+    public int guiRenderSnapshot() throws Exception {
+        // Walk one player around the board so its trail keeps growing
+        PlayerState p = players.get(guiStep % players.size());
+        guiStep++;
+        int cell = guiStep % (gridSize * gridSize);
+        p.setX(cell % gridSize);
+        p.setY(cell / gridSize);
+        snapshots.publish(guiStep, players);
+        SwingUtilities.invokeAndWait(() -> gui.renderLatest());
+        return guiStep;
+    }
+
+    @Override
+    public void tearDownGui() throws Exception {
+        SwingUtilities.invokeAndWait(() -> gui.dispose());
+    }
+
+    @Override
+    public void setupVectorEnv(int games, int threads, long seed) {
+        env = new VectorEnv(games, threads);
+        envObs = new float[games * env.obsSize()];
+        envRewards = new float[games];
+        envDones = new boolean[games];
+        // Random actions drawn up front, so the benchmark times the environment only
+        envActions = new int[64][games];
+        for (int[] actions : envActions) {
+            for (int g = 0; g < games; g++) actions[g] = rand.nextInt(env.numActions());
+        }
+        env.reset(seed, envObs);
+    }
+
+    @Override
+    public int vectorEnvStep() {
+        env.step(envActions[envStep++ & 63], envObs, envRewards, envDones);
+        return envStep;
+    }
+
+    @Override
+    public void tearDownVectorEnv() {
+        env.close();
+    }
+
+    @Override
+    public void setupExchange(int seats, int orders) {
+        book = new ExchangeBook(seats);
+        askSeats = new int[orders];
+        askColors = new int[orders];
+        orderSeats = new int[orders];
+        orderNeeds = new int[orders];
+        orderOffers = new int[orders];
+        orderPaid = new int[orders];
+        // Every batch orders the colors it escrows, in another order, so the book keeps its size; and
+        // secured orders only, as betrayals would pile up until sellers refuse and asks are left over
+        for (int i = 0; i < orders; i++) {
+            askSeats[i] = rand.nextInt(seats);
+            askColors[i] = rand.nextInt(GameConfig.NUM_COLORS);
+            orderSeats[i] = rand.nextInt(seats);
+            orderOffers[i] = rand.nextInt(GameConfig.NUM_COLORS);
+            orderPaid[i] = orderOffers[i];
+        }
+        for (int i = 0; i < orders; i++) orderNeeds[i] = askColors[i];
+        for (int i = orders - 1; i > 0; i--) {
+            int j = rand.nextInt(i + 1), t = orderNeeds[i];
+            orderNeeds[i] = orderNeeds[j];
+            orderNeeds[j] = t;
+        }
+    }
+
+    @Override
+    public long exchangeBatch() {
+        for (int i = 0; i < askSeats.length; i++) book.ask(askSeats[i], askColors[i]);
+        for (int i = 0; i < orderSeats.length; i++) book.order(orderSeats[i], orderNeeds[i], orderOffers[i], orderPaid[i], null);
+        book.match(true);
+        book.clearOrders();
+        return book.getFills();
+    }
+}
@@ -0,0 +1,34 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// ExchangeBook: one batch auction, `orders` fresh asks then `orders` orders matched against the book.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExchangeBenchmarks {
+
+    @Param({"16", "4096"})
+    public int seats;
+
+    @Param({"1", "256"})
+    public int orders;
+
+    private Fixture fixture;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        fixture = Fixture.create();
+        fixture.setupExchange(seats, orders);
+    }
+
+    @Benchmark
+    public long batch() {
+        return fixture.exchangeBatch();
+    }
+}
@@ -0,0 +1,75 @@
+package bench;
+
+/**
+ * Hot paths of the game, as seen by the benchmarks.
+ *
+ * The game sources live in the unnamed package, which named packages cannot
+ * import (and JMH refuses benchmark classes in the unnamed package). The
+ * implementation, {@code BenchFixture}, therefore sits in the unnamed package
+ * of this module and is loaded reflectively once per trial; every benchmark
+ * call then goes through this monomorphic interface.
+ */
+public interface Fixture {
+
+    void setup(int gridSize, int players, int tokens, long seed);
+
+    // One GameSession turn played by PlayerLogic players: your-turn, the player's intent (after its
+    // negotiation, if blocked), the deltas; a new session whenever one ends
+    int gameBehaviourTurn();
+
+    // One full GameEngine turn, starting a fresh game whenever one ends
+    int engineTurn();
+
+    // PlayerLogic on a your-turn when the player holds the required token
+    int handleTurnMove();
+
+    // PlayerLogic on a your-turn when blocked: call for proposals to the likely peers, their bids and
+    // trade offers, accept and rejects, and the trade intent
+    int handleTurnTrade();
+
+    // PlayerLogic on an incoming CFP (bid and trade offer), then on the reject that frees the bid
+    int handleProposal();
+
+    // PathPlanner replanning from scratch for the next player in turn
+    int planPath();
+
+    int selectOfferToken();
+
+    // Scans otherPlayers for the most trusted, like the agent does
+    Object selectPlayerToTrade();
+
+    byte[] encodeTurnIntent();
+
+    Object decodeTurnIntent();
+
+    String encodeLegacyTurnIntent();
+
+    Object encodeDecodeInit();
+
+    // Publish a snapshot with one move and let GameGUI render it on the EDT
+    void setupGui(int gridSize, int players, long seed) throws Exception;
+
+    int guiRenderSnapshot() throws Exception;
+
+    void tearDownGui() throws Exception;
+
+    // VectorEnv of the given size; each call is one step() of every game
+    void setupVectorEnv(int games, int threads, long seed);
+
+    int vectorEnvStep();
+
+    void tearDownVectorEnv();
+
+    // ExchangeBook with the given seats; each call escrows `orders` asks and matches a batch of `orders` orders
+    void setupExchange(int seats, int orders);
+
+    long exchangeBatch();
+
+    static Fixture create() {
+        try {
+            return (Fixture) Class.forName("BenchFixture").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("BenchFixture not on the classpath", e);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Rule, negotiation and codec hot paths, parameterized by board size, player count and tokens per player.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmarks {
+
+    // Board is gridSize x gridSize
+    @Param({"7", "100", "1000"})
+    public int gridSize;
+
+    @Param({"4", "32"})
+    public int players;
+
+    @Param({"7", "50"})
+    public int tokens;
+
+    private Fixture fixture;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        fixture = Fixture.create();
+        fixture.setup(gridSize, players, tokens, 42L);
+    }
+
+    @Benchmark
+    public int gameBehaviourTurn() {
+        return fixture.gameBehaviourTurn();
+    }
+
+    @Benchmark
+    public int engineTurn() {
+        return fixture.engineTurn();
+    }
+
+    @Benchmark
+    public int handleTurnMove() {
+        return fixture.handleTurnMove();
+    }
+
+    @Benchmark
+    public int handleTurnTrade() {
+        return fixture.handleTurnTrade();
+    }
+
+    @Benchmark
+    public int handleProposal() {
+        return fixture.handleProposal();
+    }
+
+    @Benchmark
+    public int planPath() {
+        return fixture.planPath();
+    }
+
+    @Benchmark
+    public int selectOfferToken() {
+        return fixture.selectOfferToken();
+    }
+
+    @Benchmark
+    public Object selectPlayerToTrade() {
+        return fixture.selectPlayerToTrade();
+    }
+
+    @Benchmark
+    public byte[] encodeTurnIntent() {
+        return fixture.encodeTurnIntent();
+    }
+
+    @Benchmark
+    public Object decodeTurnIntent() {
+        return fixture.decodeTurnIntent();
+    }
+
+    @Benchmark
+    public String encodeLegacyTurnIntent() {
+        return fixture.encodeLegacyTurnIntent();
+    }
+
+    @Benchmark
+    public Object encodeDecodeInit() {
+        return fixture.encodeDecodeInit();
+    }
+}
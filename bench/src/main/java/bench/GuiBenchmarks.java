@@ -0,0 +1,40 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// GameGUI frame: publish a snapshot with one move, render it on the EDT.
+// Needs a display (use Xvfb on a headless box).
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GuiBenchmarks {
+
+    @Param({"7", "30"})
+    public int gridSize;
+
+    @Param({"4", "32"})
+    public int players;
+
+    private Fixture fixture;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        fixture = Fixture.create();
+        fixture.setupGui(gridSize, players, 42L);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        fixture.tearDownGui();
+    }
+
+    @Benchmark
+    public int renderSnapshot() throws Exception {
+        return fixture.guiRenderSnapshot();
+    }
+}
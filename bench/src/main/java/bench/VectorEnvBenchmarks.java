@@ -0,0 +1,39 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// VectorEnv: one step() plays a turn in every game, with random actions.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VectorEnvBenchmarks {
+
+    @Param({"1024", "16384"})
+    public int games;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private Fixture fixture;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        fixture = Fixture.create();
+        fixture.setupVectorEnv(games, threads, 42L);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.tearDownVectorEnv();
+    }
+
+    @Benchmark
+    public int step() {
+        return fixture.vectorEnvStep();
+    }
+}
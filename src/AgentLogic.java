@@ -0,0 +1,15 @@
+import jade.lang.acl.ACLMessage;
+
+// An agent's behaviour as plain message handling, so the same player and
+// host logic runs on JADE (LogicBehaviour) or on LiteRuntime. Calls for one
+// agent never overlap; the logic keeps its own state without locking.
+public interface AgentLogic {
+
+    // Called once before any message, like Agent.setup()
+    void start(AgentPort port);
+
+    void handle(ACLMessage msg);
+
+    // Act on every deadline due at `now` (ms) and return the next one, or Long.MAX_VALUE if none
+    long expire(long now);
+}
@@ -0,0 +1,14 @@
+import jade.lang.acl.ACLMessage;
+
+// What the game agents need from the platform they run on: a name, a way to
+// send, and a way to stop. JADE agents get it for free (the methods are
+// Agent's own); LiteRuntime provides it for its lightweight agents.
+public interface AgentPort {
+
+    String getLocalName();
+
+    // Sets the sender and delivers to every receiver of the message
+    void send(ACLMessage msg);
+
+    void doDelete();
+}
@@ -0,0 +1,64 @@
+import java.util.random.RandomGenerator;
+
+// Compact board: one color ordinal (index into GameConfig.AVAILABLE_TOKENS)
+// per cell, stored row-major in a byte[] indexed by y * width + x. Ordinals
+// are read back unsigned, so up to GameConfig.MAX_COLORS colors fit.
+public class Board {
+
+    private final int width;
+    private final int height;
+    private final byte[] cells;
+
+    public Board(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.cells = new byte[width * height];
+    }
+
+    // Fill every cell with a uniformly random color
+    public static Board random(int width, int height, RandomGenerator rand) {
+        Board board = new Board(width, height);
+        for (int i = 0; i < board.cells.length; i++) {
+            board.cells[i] = (byte) rand.nextInt(GameConfig.NUM_COLORS);
+        }
+        return board;
+    }
+
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+
+    public int index(int x, int y) {
+        return y * width + x;
+    }
+
+    public int color(int x, int y) {
+        return cells[y * width + x] & 0xFF;
+    }
+
+    public int colorAt(int index) {
+        return cells[index] & 0xFF;
+    }
+
+    public void setColor(int x, int y, int color) {
+        cells[y * width + x] = (byte) color;
+    }
+
+    public String colorName(int x, int y) {
+        return GameConfig.AVAILABLE_TOKENS[color(x, y)];
+    }
+
+    public boolean contains(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+
+    // Case[][] view for the GUI; each Case reads through to this board
+    public Case[][] toCases() {
+        Case[][] grid = new Case[height][width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                grid[y][x] = new Case(this, x, y);
+            }
+        }
+        return grid;
+    }
+}
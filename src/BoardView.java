@@ -0,0 +1,253 @@
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Custom-painted board: cell colors, goal flags, trails and player avatars
+// are drawn in paintComponent from a small model, so an update only touches
+// the model and repaints the cells that changed. Only cells inside the clip
+// (the visible, dirty part of the viewport) are painted. Apart from the
+// Board itself, the model is sparse: trails, goals and positions are keyed
+// by cell, so memory grows with players and moves, not with board area.
+// Fonts and colors are created once. All methods must be called on the EDT.
+public class BoardView extends JComponent implements Scrollable {
+
+    public static final int MIN_CELL_SIZE = 4;
+    public static final int MAX_CELL_SIZE = 200;
+
+    // Below this cell size, labels and emoji are replaced by plain shapes
+    private static final int DETAIL_CELL_SIZE = 48;
+
+    private static final Font FLAG_FONT = new Font("Segoe UI Emoji", Font.PLAIN, 24);
+    private static final Font GOAL_FONT = new Font("Arial", Font.BOLD, 10);
+    private static final Font DOT_FONT = new Font("Arial", Font.BOLD, 18);
+    private static final Font EMOJI_FONT = new Font("Segoe UI Emoji", Font.PLAIN, 28);
+    private static final Font NAME_FONT = new Font("Arial", Font.PLAIN, 10);
+
+    private static final Color GRID_LINE = new Color(200, 200, 200, 220);
+    private static final BasicStroke GOAL_STROKE = new BasicStroke(3);
+
+    private final Board board;
+    private final Color[] palette;
+    private int cellSize;
+
+    // Players in order of appearance; ids index the lists below
+    private final List<String> playerNames = new ArrayList<>();
+    private final Map<String, Integer> playerIndex = new HashMap<>();
+    private final List<Color> trailColors = new ArrayList<>();
+    private final List<Color> avatarColors = new ArrayList<>();
+    private final List<String> flags = new ArrayList<>();
+    private final List<String> emojis = new ArrayList<>();
+    private final List<String> goalLabels = new ArrayList<>();
+
+    // Sparse per-cell state: highest player id whose trail passes the cell
+    // (drawn on top, as when every dot was stacked), goals, and positions
+    private final Map<Integer, Integer> trailTop = new HashMap<>();
+    private final Map<Integer, List<Integer>> goalsAt = new HashMap<>();
+    private final PositionIndex positions = new PositionIndex(16);
+
+    public BoardView(Board board, int cellSize) {
+        this.board = board;
+        this.cellSize = cellSize;
+        this.palette = new Color[GameConfig.NUM_COLORS];
+        for (int c = 0; c < palette.length; c++) {
+            palette[c] = GameConfig.COLOR_MAP.getOrDefault(GameConfig.AVAILABLE_TOKENS[c], Color.LIGHT_GRAY);
+        }
+        setOpaque(true);
+        updatePreferredSize();
+    }
+
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    public void setCellSize(int size) {
+        size = Math.max(MIN_CELL_SIZE, Math.min(MAX_CELL_SIZE, size));
+        if (size == cellSize) return;
+        cellSize = size;
+        updatePreferredSize();
+        revalidate();
+        repaint();
+    }
+
+    private void updatePreferredSize() {
+        setPreferredSize(new Dimension(board.getWidth() * cellSize, board.getHeight() * cellSize));
+    }
+
+    // Move a player (registering it on first sight) and repaint only the affected cells
+    public void updatePlayer(String playerName, int x, int y, int goalX, int goalY) {
+        Integer known = playerIndex.get(playerName);
+        int i = known != null ? known : register(playerName, goalX, goalY);
+
+        int cell = board.index(x, y);
+        int old = positions.cellOf(i);
+        if (old == cell) return;
+        if (old >= 0) repaintCell(old);
+
+        positions.place(i, cell);
+        trailTop.merge(cell, i, Math::max);
+        repaintCell(cell);
+    }
+
+    private int register(String playerName, int goalX, int goalY) {
+        int index = playerNames.size();
+        playerIndex.put(playerName, index);
+        playerNames.add(playerName);
+        Color trailColor = GameConfig.getTrailColor(playerName);
+        trailColors.add(trailColor);
+        avatarColors.add(new Color(trailColor.getRGB() | 0xFF000000));
+        flags.add(GameConfig.getFlag(playerName));
+        emojis.add(GameConfig.getPlayerEmoji(playerName));
+        goalLabels.add("Goal " + GameConfig.playerNumber(playerName));
+
+        int goal = board.index(goalX, goalY);
+        goalsAt.computeIfAbsent(goal, k -> new ArrayList<>()).add(index);
+        repaintCell(goal);
+        return index;
+    }
+
+    private void repaintCell(int cell) {
+        int w = board.getWidth();
+        repaint((cell % w) * cellSize, (cell / w) * cellSize, cellSize, cellSize);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        long start = System.nanoTime();
+        Graphics2D g2 = (Graphics2D) g;
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+
+        // Only the cells intersecting the clip (the dirty, visible region) are painted
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+        int x0 = Math.max(0, clip.x / cellSize);
+        int y0 = Math.max(0, clip.y / cellSize);
+        int x1 = Math.min(board.getWidth() - 1, (clip.x + clip.width - 1) / cellSize);
+        int y1 = Math.min(board.getHeight() - 1, (clip.y + clip.height - 1) / cellSize);
+
+        boolean detailed = cellSize >= DETAIL_CELL_SIZE;
+        for (int y = y0; y <= y1; y++) {
+            for (int x = x0; x <= x1; x++) {
+                if (detailed) paintCell(g2, x, y);
+                else paintCompactCell(g2, x, y);
+            }
+        }
+        GameMetrics.get().guiPaint(System.nanoTime() - start);
+    }
+
+    private void paintCell(Graphics2D g, int x, int y) {
+        int cell = board.index(x, y);
+        int size = cellSize;
+        int px = x * size;
+        int py = y * size;
+
+        g.setColor(palette[board.colorAt(cell)]);
+        g.fillRect(px, py, size, size);
+
+        List<Integer> goalsHere = goalsAt.get(cell);
+        if (goalsHere != null) {
+            g.setColor(Color.BLACK);
+            Stroke old = g.getStroke();
+            g.setStroke(GOAL_STROKE);
+            g.drawRect(px + 1, py + 1, size - 3, size - 3);
+            g.setStroke(old);
+
+            // Goal flag (left-center) and "Goal N" label (bottom-center)
+            for (int i : goalsHere) {
+                g.setFont(FLAG_FONT);
+                g.setColor(Color.BLACK);
+                g.drawString(flags.get(i), px + size / 4 - 6, py + size / 2 + 8);
+
+                g.setFont(GOAL_FONT);
+                String label = goalLabels.get(i);
+                int w = g.getFontMetrics().stringWidth(label);
+                g.drawString(label, px + (size - w) / 2, py + size - 8);
+            }
+        } else {
+            g.setColor(GRID_LINE);
+            g.drawRect(px, py, size - 1, size - 1);
+        }
+
+        // Trail dot (center)
+        Integer trail = trailTop.get(cell);
+        if (trail != null) {
+            g.setFont(DOT_FONT);
+            FontMetrics fm = g.getFontMetrics();
+            g.setColor(trailColors.get(trail));
+            g.drawString("•", px + (size - fm.stringWidth("•")) / 2, py + (size + fm.getAscent() - fm.getDescent()) / 2);
+        }
+
+        // Player avatar (center-right) with its name below
+        for (int i = positions.first(cell); i >= 0; i = positions.next(i)) {
+            g.setFont(EMOJI_FONT);
+            g.setColor(Color.BLACK);
+            g.drawString(emojis.get(i), px + size * 3 / 4 - 16, py + size / 2 + 12);
+
+            g.setFont(NAME_FONT);
+            g.setColor(Color.DARK_GRAY);
+            String name = playerNames.get(i);
+            int w = g.getFontMetrics().stringWidth(name);
+            g.drawString(name, px + size - 5 - w, py + size / 2 + 30);
+        }
+    }
+
+    // Zoomed-out rendering: colored squares, goal outlines, trail dots and avatar discs
+    private void paintCompactCell(Graphics2D g, int x, int y) {
+        int cell = board.index(x, y);
+        int size = cellSize;
+        int px = x * size;
+        int py = y * size;
+
+        g.setColor(palette[board.colorAt(cell)]);
+        g.fillRect(px, py, size, size);
+
+        if (goalsAt.containsKey(cell)) {
+            g.setColor(Color.BLACK);
+            g.drawRect(px, py, size - 1, size - 1);
+        }
+
+        Integer trail = trailTop.get(cell);
+        if (trail != null) {
+            int d = Math.max(2, size / 4);
+            g.setColor(trailColors.get(trail));
+            g.fillRect(px + (size - d) / 2, py + (size - d) / 2, d, d);
+        }
+
+        int player = positions.first(cell);
+        if (player >= 0) {
+            g.setColor(avatarColors.get(player));
+            g.fillOval(px + 1, py + 1, size - 2, size - 2);
+        }
+    }
+
+    // --- Scrollable: scroll by whole cells ---
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        Dimension d = getPreferredSize();
+        return new Dimension(Math.min(d.width, 1200), Math.min(d.height, 800));
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return cellSize;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        int extent = orientation == SwingConstants.VERTICAL ? visibleRect.height : visibleRect.width;
+        return Math.max(cellSize, extent - cellSize);
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return false;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return false;
+    }
+}
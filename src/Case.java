@@ -1,12 +1,13 @@
+// Thin view of one board cell; the color itself lives in the Board's byte[]
 public class Case {
-    private int x;
-    private int y;
-    private String color;
+    private final Board board;
+    private final int x;
+    private final int y;
 
-    public Case(int x, int y, String color) {
+    public Case(Board board, int x, int y) {
+        this.board = board;
         this.x = x;
         this.y = y;
-        this.color = color;
     }
 
     public int getX() {
@@ -18,15 +19,15 @@ public class Case {
     }
 
     public String getColor() {
-        return color;
+        return board.colorName(x, y);
     }
 
     public void setColor(String color) {
-        this.color = color;
+        board.setColor(x, y, GameConfig.colorIndex(color));
     }
 
     @Override
     public String toString() {
-        return "Case(" + x + "," + y + ")[" + color + "]";
+        return "Case(" + x + "," + y + ")[" + getColor() + "]";
     }
 }
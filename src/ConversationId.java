@@ -0,0 +1,29 @@
+// Conversation ids of the game protocol, scoped by game session:
+// "<session>/<base>", e.g. "g42/your-turn" or "g42/negotiation-Player3-7".
+// The unnamed session ("") uses the plain base ids of the single-game
+// protocol. Shared by the codec, the session host, the players and the
+// exchange, so none of them depends on another to read an id.
+public final class ConversationId {
+
+    private static final char SEPARATOR = '/';
+
+    private ConversationId() {
+    }
+
+    // The id of a base conversation in the session
+    public static String of(String session, String base) {
+        return session.isEmpty() ? base : session + SEPARATOR + base;
+    }
+
+    // The session part of an id, "" for the single game
+    public static String sessionOf(String conversationId) {
+        int at = conversationId == null ? -1 : conversationId.indexOf(SEPARATOR);
+        return at < 0 ? "" : conversationId.substring(0, at);
+    }
+
+    // The id without its session prefix
+    public static String baseOf(String conversationId) {
+        int at = conversationId == null ? -1 : conversationId.indexOf(SEPARATOR);
+        return at < 0 ? conversationId : conversationId.substring(at + 1);
+    }
+}
@@ -0,0 +1,12 @@
+import jade.core.Agent;
+
+// An ExchangeLogic on JADE: the order books of every session in one agent.
+public class ExchangeAgent extends Agent implements AgentPort {
+
+    @Override
+    protected void setup() {
+        ExchangeLogic logic = new ExchangeLogic();
+        logic.start(this);
+        addBehaviour(new LogicBehaviour(logic));
+    }
+}
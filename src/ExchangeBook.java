@@ -0,0 +1,176 @@
+import java.util.Arrays;
+
+// Order book of one game session on the exchange. Asks are tokens escrowed
+// by their holders, kept per color as a FIFO ring of seat indices (one entry
+// per token); orders are the blocked players' requests of the current batch,
+// in arrival order. Everything is primitive arrays, reused from batch to
+// batch, so matching allocates nothing once the book has grown to size.
+//
+// match() is the batch auction: secured orders (payment escrowed, or nothing
+// offered) go first, then unsecured ones (a payment offered but not
+// escrowed: a betrayal), if the policy lets them through at all. Each order
+// takes the oldest ask of its color from a seller other than itself whom it
+// has not betrayed MAX_BETRAYALS times; an ask of the buyer's own is handed
+// back to it first, as it needs the token itself.
+public class ExchangeBook {
+
+    // A seller stops trading with a buyer after this many betrayals, as a Reputation without decay does
+    public static final int MAX_BETRAYALS = Reputation.MAX_BETRAYALS;
+
+    // Result of an order with no ask to match
+    public static final int NO_FILL = -1;
+
+    private int seats;
+    // Per color, a ring of seats with one token escrowed each
+    private final int[][] asks = new int[GameConfig.NUM_COLORS][];
+    private final int[] askHead = new int[GameConfig.NUM_COLORS];
+    private final int[] askSize = new int[GameConfig.NUM_COLORS];
+    // Asks in the book per seat and color, held[seat * colors + color], so an order only looks
+    // for an ask of its own when there is one
+    private int[] held;
+    // betrayals[victim * seats + betrayer]
+    private int[] betrayals;
+
+    // Orders of the batch; seller[i] is the match result (a seat, the buyer itself, or NO_FILL)
+    private int orders;
+    private int[] buyer = new int[4];
+    private int[] need = new int[4];
+    private int[] offer = new int[4];
+    private int[] paid = new int[4];
+    private int[] seller = new int[4];
+    private Object[] tags = new Object[4];
+
+    private long fills;
+    private long unsecuredFills;
+
+    public ExchangeBook(int seats) {
+        this.seats = Math.max(1, seats);
+        held = new int[this.seats * GameConfig.NUM_COLORS];
+        betrayals = new int[this.seats * this.seats];
+        for (int c = 0; c < asks.length; c++) asks[c] = new int[this.seats];
+    }
+
+    // ---- asks ----
+
+    // Escrow one token of color for the seat
+    public void ask(int seat, int color) {
+        ensureSeat(seat);
+        int[] ring = asks[color];
+        if (askSize[color] == ring.length) {
+            // Unroll the ring into a larger one
+            int[] grown = new int[ring.length * 2];
+            for (int i = 0; i < askSize[color]; i++) grown[i] = ring[(askHead[color] + i) % ring.length];
+            asks[color] = ring = grown;
+            askHead[color] = 0;
+        }
+        ring[(askHead[color] + askSize[color]++) % ring.length] = seat;
+        held[seat * GameConfig.NUM_COLORS + color]++;
+    }
+
+    public int asks(int color) {
+        return askSize[color];
+    }
+
+    // ---- orders ----
+
+    // Queue an order for the next match(); tag is handed back with the result (the request to answer)
+    public void order(int seat, int need, int offer, int paid, Object tag) {
+        ensureSeat(seat);
+        if (orders == buyer.length) {
+            int n = orders * 2;
+            buyer = Arrays.copyOf(buyer, n);
+            this.need = Arrays.copyOf(this.need, n);
+            this.offer = Arrays.copyOf(this.offer, n);
+            this.paid = Arrays.copyOf(this.paid, n);
+            seller = Arrays.copyOf(seller, n);
+            tags = Arrays.copyOf(tags, n);
+        }
+        buyer[orders] = seat;
+        this.need[orders] = need;
+        this.offer[orders] = offer;
+        this.paid[orders] = paid;
+        seller[orders] = NO_FILL;
+        tags[orders] = tag;
+        orders++;
+    }
+
+    public int orders() { return orders; }
+    public int buyer(int i) { return buyer[i]; }
+    public int need(int i) { return need[i]; }
+    public int paid(int i) { return paid[i]; }
+    public int seller(int i) { return seller[i]; }
+    public Object tag(int i) { return tags[i]; }
+
+    // An order that offers a token but did not escrow it
+    public boolean unsecured(int i) {
+        return offer[i] >= 0 && paid[i] < 0;
+    }
+
+    // Match the batch; results are read with seller(i) until clearOrders()
+    public void match(boolean allowUnsecured) {
+        for (int i = 0; i < orders; i++) {
+            if (!unsecured(i)) seller[i] = take(buyer[i], need[i]);
+        }
+        if (!allowUnsecured) return;
+        for (int i = 0; i < orders; i++) {
+            if (!unsecured(i)) continue;
+            int s = take(buyer[i], need[i]);
+            seller[i] = s;
+            if (s >= 0 && s != buyer[i]) {
+                betrayals[s * seats + buyer[i]]++;
+                unsecuredFills++;
+            }
+        }
+    }
+
+    public void clearOrders() {
+        Arrays.fill(tags, 0, orders, null);
+        orders = 0;
+    }
+
+    // The buyer's own ask of the color if it has one, else the oldest acceptable one, else NO_FILL.
+    // Asks passed over keep their order.
+    private int take(int seat, int color) {
+        int[] ring = asks[color];
+        int size = askSize[color], head = askHead[color];
+        boolean own = held[seat * GameConfig.NUM_COLORS + color] > 0;
+        int found = -1;
+        for (int k = 0; k < size; k++) {
+            int s = ring[(head + k) % ring.length];
+            if (s == seat) {
+                found = k;
+                break;
+            }
+            if (found < 0 && betrayals[s * seats + seat] < MAX_BETRAYALS) {
+                found = k;
+                if (!own) break;
+            }
+        }
+        if (found < 0) return NO_FILL;
+        int s = ring[(head + found) % ring.length];
+        // Close the gap from the head side, so the rest of the ring keeps its order
+        for (int k = found; k > 0; k--) ring[(head + k) % ring.length] = ring[(head + k - 1) % ring.length];
+        askHead[color] = (head + 1) % ring.length;
+        askSize[color] = size - 1;
+        held[s * GameConfig.NUM_COLORS + color]--;
+        if (s != seat) fills++;
+        return s;
+    }
+
+    public int getBetrayals(int victim, int betrayer) {
+        return victim < seats && betrayer < seats ? betrayals[victim * seats + betrayer] : 0;
+    }
+
+    public long getFills() { return fills; }
+    public long getUnsecuredFills() { return unsecuredFills; }
+
+    private void ensureSeat(int seat) {
+        if (seat < seats) return;
+        int n = Math.max(seat + 1, seats * 2);
+        int[] grown = new int[n * n];
+        for (int v = 0; v < seats; v++) System.arraycopy(betrayals, v * seats, grown, v * n, seats);
+        betrayals = grown;
+        held = Arrays.copyOf(held, n * GameConfig.NUM_COLORS);
+        seats = n;
+    }
+}
@@ -0,0 +1,187 @@
+import jade.core.AID;
+import jade.lang.acl.ACLMessage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// The token exchange (GameConfig.EXCHANGE_AGENT): one ExchangeBook per game
+// session. Players escrow spare tokens here as asks and, when blocked, send
+// one order instead of a call for proposals to every peer. Orders wait for
+// the next batch, every GameConfig.EXCHANGE_BATCH_MS, and the batch is
+// matched at once; the host is told of each fill as a trade offer, the buyer
+// whom it traded with (its trade intent then moves the tokens at the host)
+// and the seller what it got. A session's host introduces it with an init
+// before any ask comes in, and its book is dropped with the game-over.
+//
+// Escrow makes betrayal a policy of the exchange rather than a coin the
+// buyer tosses in private: an order that offers a payment without escrowing
+// it is unsecured, matched after every secured order of its batch (or not at
+// all, see GameConfig.EXCHANGE_UNSECURED), logged, and held against the buyer
+// in the seller's betrayal count.
+//
+// Runs as an ExchangeAgent on JADE or as a lightweight agent on LiteRuntime.
+public class ExchangeLogic implements AgentLogic {
+
+    // A session's book, its host and the agent at each seat, as learned from its init, asks and orders
+    private static class Market {
+        final String session;
+        String host;
+        final ExchangeBook book = new ExchangeBook(GameConfig.NUM_PLAYERS);
+        final List<String> names = new ArrayList<>();
+        boolean pending;
+
+        Market(String session) {
+            this.session = session;
+        }
+
+        void seat(int seat, String name) {
+            while (names.size() <= seat) names.add(null);
+            names.set(seat, name);
+        }
+
+        String conversation(String base) {
+            return ConversationId.of(session, base);
+        }
+    }
+
+    private final Map<String, Market> markets = new HashMap<>();
+    // Markets with orders waiting for the batch
+    private final List<Market> pending = new ArrayList<>();
+    private long batchAt = Long.MAX_VALUE;
+
+    private long orders;
+    private long fills;
+    private long betrayals;
+    private long refused;
+
+    private AgentPort port;
+
+    @Override
+    public void start(AgentPort port) {
+        this.port = port;
+        GameLog.info(port.getLocalName(), "matching orders every {} ms, unsecured orders {}",
+                GameConfig.EXCHANGE_BATCH_MS, GameConfig.EXCHANGE_UNSECURED ? "filled last" : "refused");
+    }
+
+    @Override
+    public void handle(ACLMessage msg) {
+        String conversation = msg.getConversationId();
+        String session = ConversationId.sessionOf(conversation);
+        String base = ConversationId.baseOf(conversation);
+        GameMetrics.get().received(conversation);
+        if ("game-over".equals(base)) {
+            Market market = markets.remove(session);
+            if (market != null && market.pending) pending.remove(market);
+            return;
+        }
+        if ("init".equals(base)) {
+            Market market = markets.computeIfAbsent(session, Market::new);
+            market.host = msg.getSender().getLocalName();
+            List<String> players = ((GameMessage.Init) GameCodec.read(msg)).players();
+            for (int i = 0; i < players.size(); i++) market.seat(i, players.get(i));
+            return;
+        }
+        if (!"exchange".equals(base)) {
+            GameLog.warn(port.getLocalName(), "dropped unexpected {} message from {}", ACLMessage.getPerformative(msg.getPerformative()), msg.getSender().getLocalName());
+            return;
+        }
+
+        Market market = markets.computeIfAbsent(session, Market::new);
+        GameMessage content = GameCodec.read(msg);
+        if (content instanceof GameMessage.Ask ask) {
+            market.seat(ask.seat(), msg.getSender().getLocalName());
+            TokenBag tokens = ask.tokens();
+            for (int c = 0; c < GameConfig.NUM_COLORS; c++) {
+                for (int i = tokens.count(c); i > 0; i--) market.book.ask(ask.seat(), c);
+            }
+        } else if (content instanceof GameMessage.Order order) {
+            market.seat(order.seat(), msg.getSender().getLocalName());
+            market.book.order(order.seat(), order.need(), order.offer(), order.paid(), msg);
+            orders++;
+            if (!market.pending) {
+                market.pending = true;
+                pending.add(market);
+            }
+            if (batchAt == Long.MAX_VALUE) batchAt = System.currentTimeMillis() + GameConfig.EXCHANGE_BATCH_MS;
+        }
+    }
+
+    // Run the batch when it is due
+    @Override
+    public long expire(long now) {
+        if (pending.isEmpty()) return Long.MAX_VALUE;
+        if (now < batchAt) return batchAt;
+        for (Market market : pending) {
+            settle(market);
+            market.pending = false;
+        }
+        pending.clear();
+        batchAt = Long.MAX_VALUE;
+        return Long.MAX_VALUE;
+    }
+
+    // Match a market's orders and answer every one of them; each sale is confirmed to its seller
+    private void settle(Market market) {
+        ExchangeBook book = market.book;
+        book.match(GameConfig.EXCHANGE_UNSECURED);
+        int sent = 0;
+        for (int i = 0; i < book.orders(); i++) {
+            int buyer = book.buyer(i), seller = book.seller(i), need = book.need(i), paid = book.paid(i);
+            ACLMessage reply = ((ACLMessage) book.tag(i)).createReply();
+            reply.setPerformative(ACLMessage.INFORM);
+            sent++;
+            if (seller == ExchangeBook.NO_FILL) {
+                if (book.unsecured(i) && !GameConfig.EXCHANGE_UNSECURED) {
+                    refused++;
+                    GameLog.debug(port.getLocalName(), "refused the unsecured order of {}", market.names.get(buyer));
+                }
+                GameCodec.write(reply, new GameMessage.Fill(ExchangeBook.NO_FILL, -1, -1));
+                port.send(reply);
+                continue;
+            }
+            if (seller == buyer) {
+                // Its own ask, back to the buyer
+                GameCodec.write(reply, new GameMessage.Fill(buyer, need, -1));
+                port.send(reply);
+                continue;
+            }
+
+            fills++;
+            // The host first, so the offer is in before the buyer's trade intent
+            if (market.host != null) {
+                ACLMessage offer = new ACLMessage(ACLMessage.INFORM);
+                offer.addReceiver(new AID(market.host, AID.ISLOCALNAME));
+                offer.setConversationId(market.conversation("trade-offer"));
+                GameCodec.write(offer, new GameMessage.TradeOffer(buyer, seller, need));
+                port.send(offer);
+                GameMetrics.get().sent(offer.getConversationId(), 1);
+            }
+            GameCodec.write(reply, new GameMessage.Fill(seller, need, paid));
+            port.send(reply);
+            ACLMessage sale = new ACLMessage(ACLMessage.CONFIRM);
+            sale.addReceiver(new AID(market.names.get(seller), AID.ISLOCALNAME));
+            sale.setConversationId(market.conversation("exchange"));
+            GameCodec.write(sale, new GameMessage.Sale(buyer, need, paid));
+            port.send(sale);
+            sent++;
+            if (book.unsecured(i)) {
+                betrayals++;
+                // Hosted sessions come by the thousand: their betrayals are debug lines
+                if (market.session.isEmpty()) {
+                    GameLog.info(port.getLocalName(), "{} took '{}' from {} without paying", market.names.get(buyer), GameConfig.colorName(need), market.names.get(seller));
+                } else {
+                    GameLog.debug(port.getLocalName(), "{} took '{}' from {} without paying in session '{}'", market.names.get(buyer), GameConfig.colorName(need), market.names.get(seller), market.session);
+                }
+            }
+        }
+        book.clearOrders();
+        GameMetrics.get().sent(market.conversation("exchange"), sent);
+    }
+
+    public long getOrders() { return orders; }
+    public long getFills() { return fills; }
+    public long getBetrayals() { return betrayals; }
+    public long getRefused() { return refused; }
+}
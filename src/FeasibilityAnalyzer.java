@@ -0,0 +1,123 @@
+import java.util.List;
+
+// Whether any player can still reach its goal, so a stalled game ends as a
+// draw at once instead of playing its turns out to MAX_GAME_TURNS. Tokens
+// only change hands in trades and are used up by moves, so all the players'
+// tokens together (the pool) bound what can still be walked: one token per
+// cell entered, and no cell of a color that has run out.
+//
+// A player is ruled out when the goal cannot be reached around the colors
+// that ran out, or when the pool holds fewer tokens than the cells still to
+// enter: the Manhattan distance, or the shortest path around those colors
+// when last searched, less the moves made since. The pool only shrinks and
+// the paths only lengthen, so a player ruled out stays out.
+//
+// Each move updates the pool in O(1). Paths are searched (one breadth-first
+// search per player still in, cut off at the pool size) only when a color
+// runs out, at most NUM_COLORS times a game.
+public class FeasibilityAnalyzer {
+
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final Board board;
+    private final List<PlayerState> players;
+    private final int[] pool = new int[GameConfig.NUM_COLORS];
+    private int total;
+    // Per player: cells to enter on the shortest path as of the last search (0 before any),
+    // UNREACHABLE once ruled out, and its moves since that search
+    private final int[] searched;
+    private final int[] moves;
+
+    // Search scratch, allocated on the first search: visit stamps, distances and the queue
+    private int[] stamp;
+    private int[] dist;
+    private int[] queue;
+    private int generation;
+
+    public FeasibilityAnalyzer(Board board, List<PlayerState> players) {
+        this.board = board;
+        this.players = players;
+        searched = new int[players.size()];
+        moves = new int[players.size()];
+        for (PlayerState p : players) {
+            for (int c = 0; c < pool.length; c++) pool[c] += p.getTokens().count(c);
+        }
+        for (int n : pool) total += n;
+        for (int c = 0; c < pool.length; c++) {
+            if (pool[c] == 0) {
+                searchAll();
+                break;
+            }
+        }
+    }
+
+    // A player entered a cell of the color, using one token up
+    public void moved(int player, int color) {
+        moves[player]++;
+        total--;
+        if (--pool[color] == 0) searchAll();
+    }
+
+    public boolean canFinish(int player) {
+        PlayerState p = players.get(player);
+        if (p.isDisqualified() || searched[player] == UNREACHABLE) return false;
+        int manhattan = Math.abs(p.getGoalX() - p.getX()) + Math.abs(p.getGoalY() - p.getY());
+        return Math.max(manhattan, searched[player] - moves[player]) <= total;
+    }
+
+    // False once no player can reach its goal any more: the game is a draw
+    public boolean anyCanFinish() {
+        for (int i = 0; i < players.size(); i++) {
+            if (canFinish(i)) return true;
+        }
+        return false;
+    }
+
+    public int getPool() { return total; }
+    public int getPool(int color) { return pool[color]; }
+
+    // A color ran out: search again every player still in
+    private void searchAll() {
+        for (int i = 0; i < players.size(); i++) {
+            if (!canFinish(i)) continue;
+            searched[i] = search(players.get(i));
+            moves[i] = 0;
+        }
+    }
+
+    // Cells to enter on the shortest path to the goal through colors left in the pool, or
+    // UNREACHABLE if there is none within the pool
+    private int search(PlayerState p) {
+        int width = board.getWidth(), height = board.getHeight();
+        int cells = width * height;
+        if (stamp == null) {
+            stamp = new int[cells];
+            dist = new int[cells];
+            queue = new int[cells];
+        }
+        generation++;
+        int start = board.index(p.getX(), p.getY()), goal = board.index(p.getGoalX(), p.getGoalY());
+        if (start == goal) return 0;
+        int head = 0, tail = 0;
+        queue[tail++] = start;
+        stamp[start] = generation;
+        dist[start] = 0;
+        while (head < tail) {
+            int cell = queue[head++];
+            int d = dist[cell] + 1;
+            if (d > total) break;
+            int x = cell % width, y = cell / width;
+            for (int k = 0; k < 4; k++) {
+                int nx = x + (k == 0 ? 1 : k == 1 ? -1 : 0), ny = y + (k == 2 ? 1 : k == 3 ? -1 : 0);
+                if (nx < 0 || ny < 0 || nx >= width || ny >= height) continue;
+                int next = ny * width + nx;
+                if (stamp[next] == generation || pool[board.colorAt(next)] == 0) continue;
+                if (next == goal) return d;
+                stamp[next] = generation;
+                dist[next] = d;
+                queue[tail++] = next;
+            }
+        }
+        return UNREACHABLE;
+    }
+}
@@ -0,0 +1,457 @@
+import jade.lang.acl.ACLMessage;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Versioned codec for GameMessage, shared by MainAgent and PlayerAgent.
+//
+// Binary layout (carried in ACLMessage byte sequence content):
+//   [version u8][type u8][payload...]
+//   color      u8 ordinal, 0xFF = NONE
+//   tokens     [numColors u8][count u16 per color]
+//   string     [length u16][UTF-8 bytes]
+//   turn request [color][x i32][y i32], the target cell being optional
+//   turn intent [kind u8] then move [direction u8], trade [partner u16][got color][paid color], pass nothing
+//   turn delta [dx i8][dy i8][gained color][lost color][blocked turns u8][out u8]
+//   game over  [winner i32], -1 for a draw
+//   trade report [count u16]([partner string][trades u16])*
+//   migrate    [container string]
+//   ask        [seat u16][tokens]
+//   order      [seat u16][need color][offer color][paid color]
+//   fill       [partner i16][got color][paid color]
+//   sale       [partner u16][sold color][paid color]
+//   trade offer [buyer u16][seller u16][color]
+//
+// Messages without binary content are parsed from the text formats
+// ("startX,startY;goalX,goalY;tokens;players", "MOVE;E", "Need:X;Offer:Y", ...)
+// written when GameConfig.BINARY_MESSAGES is off. Binary content of another version
+// is refused, not misread: agents only play with agents of their own version.
+//
+// VERSION goes up with every change old decoders would misread:
+//   1  first binary codec
+//   2  turn requests carry the target cell
+//   3  turn intents and deltas (10, 11) replace the full state after a turn (3)
+// New message types within a version are refused by older decoders as unknown.
+public final class GameCodec {
+
+    public static final byte VERSION = 3;
+
+    private static final byte TYPE_INIT = 1;
+    private static final byte TYPE_TURN_REQUEST = 2;
+    private static final byte TYPE_PROPOSAL = 4;
+    private static final byte TYPE_PROPOSAL_REPLY = 5;
+    private static final byte TYPE_PAYMENT = 6;
+    private static final byte TYPE_GAME_OVER = 7;
+    private static final byte TYPE_TRADE_REPORT = 8;
+    private static final byte TYPE_MIGRATE = 9;
+    private static final byte TYPE_TURN_INTENT = 10;
+    private static final byte TYPE_TURN_DELTA = 11;
+    private static final byte TYPE_ASK = 12;
+    private static final byte TYPE_ORDER = 13;
+    private static final byte TYPE_FILL = 14;
+    private static final byte TYPE_SALE = 15;
+    private static final byte TYPE_TRADE_OFFER = 16;
+
+    // Legacy text names of the intent kinds and directions
+    private static final String[] INTENT_KINDS = {"MOVE", "TRADE", "PASS"};
+    private static final String DIRECTIONS = "EWSN";
+
+    private static final int NONE = 0xFF;
+
+    private GameCodec() {
+    }
+
+    // Set the message content, binary unless GameConfig.BINARY_MESSAGES is off
+    public static void write(ACLMessage msg, GameMessage m) {
+        if (GameConfig.BINARY_MESSAGES) {
+            msg.setByteSequenceContent(encode(m));
+        } else {
+            msg.setContent(toLegacyText(m));
+        }
+    }
+
+    // Decode the message content, falling back to the legacy text format
+    public static GameMessage read(ACLMessage msg) {
+        if (msg.hasByteSequenceContent()) {
+            byte[] bytes = msg.getByteSequenceContent();
+            // Another version throws rather than fall through to the text formats
+            if (bytes != null && bytes.length >= 2) return decode(bytes);
+        }
+        return parseLegacy(msg);
+    }
+
+    // --- Binary ---
+
+    public static byte[] encode(GameMessage m) {
+        ByteBuffer buf = ByteBuffer.allocate(encodedSize(m));
+        buf.put(VERSION);
+        if (m instanceof GameMessage.Init init) {
+            buf.put(TYPE_INIT);
+            buf.putInt(init.startX()).putInt(init.startY()).putInt(init.goalX()).putInt(init.goalY());
+            putTokens(buf, init.tokens());
+            buf.putShort((short) init.players().size());
+            for (String name : init.players()) putString(buf, name);
+        } else if (m instanceof GameMessage.TurnRequest req) {
+            buf.put(TYPE_TURN_REQUEST);
+            putColor(buf, req.color());
+            if (req.hasTarget()) buf.putInt(req.x()).putInt(req.y());
+        } else if (m instanceof GameMessage.TurnIntent intent) {
+            buf.put(TYPE_TURN_INTENT);
+            buf.put((byte) intent.kind());
+            if (intent.kind() == GameMessage.TurnIntent.MOVE) {
+                buf.put((byte) intent.direction());
+            } else if (intent.kind() == GameMessage.TurnIntent.TRADE) {
+                buf.putShort((short) intent.partner());
+                putColor(buf, intent.got());
+                putColor(buf, intent.paid());
+            }
+        } else if (m instanceof GameMessage.TurnDelta d) {
+            buf.put(TYPE_TURN_DELTA);
+            buf.put((byte) d.dx()).put((byte) d.dy());
+            putColor(buf, d.gained());
+            putColor(buf, d.lost());
+            buf.put((byte) Math.min(d.blockedTurns(), 0xFF));
+            buf.put((byte) (d.out() ? 1 : 0));
+        } else if (m instanceof GameMessage.Proposal p) {
+            buf.put(TYPE_PROPOSAL);
+            putColor(buf, p.need());
+            putColor(buf, p.offer());
+        } else if (m instanceof GameMessage.ProposalReply r) {
+            buf.put(TYPE_PROPOSAL_REPLY);
+            putColor(buf, r.token());
+        } else if (m instanceof GameMessage.Payment p) {
+            buf.put(TYPE_PAYMENT);
+            putColor(buf, p.token());
+        } else if (m instanceof GameMessage.GameOver g) {
+            buf.put(TYPE_GAME_OVER);
+            buf.putInt(g.winner());
+        } else if (m instanceof GameMessage.TradeReport r) {
+            buf.put(TYPE_TRADE_REPORT);
+            buf.putShort((short) r.trades().size());
+            for (Map.Entry<String, Integer> e : r.trades().entrySet()) {
+                putString(buf, e.getKey());
+                buf.putShort((short) Math.min(e.getValue(), 0xFFFF));
+            }
+        } else if (m instanceof GameMessage.Migrate mig) {
+            buf.put(TYPE_MIGRATE);
+            putString(buf, mig.container());
+        } else if (m instanceof GameMessage.Ask a) {
+            buf.put(TYPE_ASK);
+            buf.putShort((short) a.seat());
+            putTokens(buf, a.tokens());
+        } else if (m instanceof GameMessage.Order o) {
+            buf.put(TYPE_ORDER);
+            buf.putShort((short) o.seat());
+            putColor(buf, o.need());
+            putColor(buf, o.offer());
+            putColor(buf, o.paid());
+        } else if (m instanceof GameMessage.Fill f) {
+            buf.put(TYPE_FILL);
+            buf.putShort((short) f.partner());
+            putColor(buf, f.got());
+            putColor(buf, f.paid());
+        } else if (m instanceof GameMessage.Sale sale) {
+            buf.put(TYPE_SALE);
+            buf.putShort((short) sale.partner());
+            putColor(buf, sale.sold());
+            putColor(buf, sale.paid());
+        } else if (m instanceof GameMessage.TradeOffer o) {
+            buf.put(TYPE_TRADE_OFFER);
+            buf.putShort((short) o.buyer());
+            buf.putShort((short) o.seller());
+            putColor(buf, o.color());
+        }
+        return buf.array();
+    }
+
+    private static int encodedSize(GameMessage m) {
+        int tokens = 1 + 2 * GameConfig.NUM_COLORS;
+        if (m instanceof GameMessage.Init init) {
+            int size = 2 + 16 + tokens + 2;
+            for (String name : init.players()) size += 2 + name.getBytes(StandardCharsets.UTF_8).length;
+            return size;
+        }
+        if (m instanceof GameMessage.TurnIntent intent) {
+            return 2 + 1 + (intent.kind() == GameMessage.TurnIntent.MOVE ? 1 : intent.kind() == GameMessage.TurnIntent.TRADE ? 4 : 0);
+        }
+        if (m instanceof GameMessage.TurnDelta) return 2 + 6;
+        if (m instanceof GameMessage.TurnRequest req) return 2 + 1 + (req.hasTarget() ? 8 : 0);
+        if (m instanceof GameMessage.Proposal) return 2 + 2;
+        if (m instanceof GameMessage.GameOver) return 2 + 4;
+        if (m instanceof GameMessage.TradeReport r) {
+            int size = 2 + 2;
+            for (String name : r.trades().keySet()) size += 2 + name.getBytes(StandardCharsets.UTF_8).length + 2;
+            return size;
+        }
+        if (m instanceof GameMessage.Migrate mig) return 2 + 2 + mig.container().getBytes(StandardCharsets.UTF_8).length;
+        if (m instanceof GameMessage.Ask) return 2 + 2 + tokens;
+        if (m instanceof GameMessage.Order) return 2 + 5;
+        if (m instanceof GameMessage.Fill || m instanceof GameMessage.Sale) return 2 + 4;
+        if (m instanceof GameMessage.TradeOffer) return 2 + 5;
+        return 2 + 1;
+    }
+
+    public static GameMessage decode(byte[] bytes) {
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        byte version = buf.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported message version " + version);
+        }
+        byte type = buf.get();
+        switch (type) {
+            case TYPE_INIT: {
+                int startX = buf.getInt(), startY = buf.getInt(), goalX = buf.getInt(), goalY = buf.getInt();
+                TokenBag tokens = getTokens(buf);
+                int n = buf.getShort() & 0xFFFF;
+                List<String> players = new ArrayList<>(n);
+                for (int i = 0; i < n; i++) players.add(getString(buf));
+                return new GameMessage.Init(startX, startY, goalX, goalY, tokens, players);
+            }
+            case TYPE_TURN_REQUEST: {
+                int color = getColor(buf);
+                // Senders from before path planning send the color only
+                if (buf.remaining() < 8) return new GameMessage.TurnRequest(color);
+                return new GameMessage.TurnRequest(color, buf.getInt(), buf.getInt());
+            }
+            case TYPE_TURN_INTENT: {
+                int kind = buf.get();
+                if (kind == GameMessage.TurnIntent.MOVE) {
+                    // An unknown direction decodes as -1, as in the legacy text format
+                    int direction = buf.get();
+                    return GameMessage.TurnIntent.move(direction >= 0 && direction <= GameMessage.TurnIntent.NORTH ? direction : -1);
+                }
+                if (kind == GameMessage.TurnIntent.TRADE) {
+                    return GameMessage.TurnIntent.trade(buf.getShort() & 0xFFFF, getColor(buf), getColor(buf));
+                }
+                return GameMessage.TurnIntent.pass();
+            }
+            case TYPE_TURN_DELTA:
+                return new GameMessage.TurnDelta(buf.get(), buf.get(), getColor(buf), getColor(buf), buf.get() & 0xFF, buf.get() != 0);
+            case TYPE_PROPOSAL:
+                return new GameMessage.Proposal(getColor(buf), getColor(buf));
+            case TYPE_PROPOSAL_REPLY:
+                return new GameMessage.ProposalReply(getColor(buf));
+            case TYPE_PAYMENT:
+                return new GameMessage.Payment(getColor(buf));
+            case TYPE_GAME_OVER:
+                return new GameMessage.GameOver(buf.getInt());
+            case TYPE_TRADE_REPORT: {
+                int n = buf.getShort() & 0xFFFF;
+                Map<String, Integer> trades = new LinkedHashMap<>();
+                for (int i = 0; i < n; i++) trades.put(getString(buf), buf.getShort() & 0xFFFF);
+                return new GameMessage.TradeReport(trades);
+            }
+            case TYPE_MIGRATE:
+                return new GameMessage.Migrate(getString(buf));
+            case TYPE_ASK:
+                return new GameMessage.Ask(buf.getShort() & 0xFFFF, getTokens(buf));
+            case TYPE_ORDER:
+                return new GameMessage.Order(buf.getShort() & 0xFFFF, getColor(buf), getColor(buf), getColor(buf));
+            case TYPE_FILL:
+                return new GameMessage.Fill(buf.getShort(), getColor(buf), getColor(buf));
+            case TYPE_SALE:
+                return new GameMessage.Sale(buf.getShort() & 0xFFFF, getColor(buf), getColor(buf));
+            case TYPE_TRADE_OFFER:
+                return new GameMessage.TradeOffer(buf.getShort() & 0xFFFF, buf.getShort() & 0xFFFF, getColor(buf));
+            default:
+                throw new IllegalArgumentException("Unknown message type " + type);
+        }
+    }
+
+    private static void putColor(ByteBuffer buf, int color) {
+        buf.put((byte) (color < 0 ? NONE : color));
+    }
+
+    private static int getColor(ByteBuffer buf) {
+        int c = buf.get() & 0xFF;
+        return c == NONE || c >= GameConfig.NUM_COLORS ? -1 : c;
+    }
+
+    private static void putTokens(ByteBuffer buf, TokenBag tokens) {
+        buf.put((byte) GameConfig.NUM_COLORS);
+        for (int c = 0; c < GameConfig.NUM_COLORS; c++) buf.putShort((short) tokens.count(c));
+    }
+
+    private static TokenBag getTokens(ByteBuffer buf) {
+        int n = buf.get() & 0xFF;
+        TokenBag tokens = new TokenBag();
+        for (int c = 0; c < n; c++) {
+            int count = buf.getShort() & 0xFFFF;
+            if (c < GameConfig.NUM_COLORS) tokens.add(c, count);
+        }
+        return tokens;
+    }
+
+    private static void putString(ByteBuffer buf, String s) {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        buf.putShort((short) b.length);
+        buf.put(b);
+    }
+
+    private static String getString(ByteBuffer buf) {
+        int len = buf.getShort() & 0xFFFF;
+        String s = new String(buf.array(), buf.position(), len, StandardCharsets.UTF_8);
+        buf.position(buf.position() + len);
+        return s;
+    }
+
+    // --- Legacy text ---
+
+    public static String toLegacyText(GameMessage m) {
+        if (m instanceof GameMessage.Init init) {
+            return init.startX() + "," + init.startY() + ";" + init.goalX() + "," + init.goalY() + ";"
+                    + String.join(",", init.tokens().toList()) + ";" + String.join(",", init.players());
+        } else if (m instanceof GameMessage.TurnRequest req) {
+            String color = GameConfig.colorName(req.color());
+            return req.hasTarget() ? color + ";" + req.x() + "," + req.y() : color;
+        } else if (m instanceof GameMessage.TurnIntent intent) {
+            // "MOVE;E", "TRADE;2;Red;NONE", "PASS"
+            String kind = INTENT_KINDS[intent.kind()];
+            if (intent.kind() == GameMessage.TurnIntent.MOVE) {
+                // A move with no step (direction -1) is played as a pass, so it is written as one
+                int d = intent.direction();
+                return d >= 0 && d < DIRECTIONS.length() ? kind + ";" + DIRECTIONS.charAt(d) : INTENT_KINDS[GameMessage.TurnIntent.PASS];
+            }
+            if (intent.kind() == GameMessage.TurnIntent.TRADE) {
+                return kind + ";" + intent.partner() + ";" + GameConfig.colorName(intent.got()) + ";" + GameConfig.colorName(intent.paid());
+            }
+            return kind;
+        } else if (m instanceof GameMessage.TurnDelta d) {
+            // "dx,dy;gained;lost;blocked;OK|OUT"
+            return d.dx() + "," + d.dy() + ";" + GameConfig.colorName(d.gained()) + ";" + GameConfig.colorName(d.lost())
+                    + ";" + d.blockedTurns() + ";" + (d.out() ? "OUT" : "OK");
+        } else if (m instanceof GameMessage.Proposal p) {
+            return "Need:" + GameConfig.colorName(p.need()) + ";Offer:" + GameConfig.colorName(p.offer());
+        } else if (m instanceof GameMessage.ProposalReply r) {
+            return GameConfig.colorName(r.token());
+        } else if (m instanceof GameMessage.GameOver g) {
+            return String.valueOf(g.winner());
+        } else if (m instanceof GameMessage.TradeReport r) {
+            // "Player2:3,Player5:1"
+            StringBuilder sb = new StringBuilder();
+            r.trades().forEach((name, n) -> sb.append(sb.length() == 0 ? "" : ",").append(name).append(':').append(n));
+            return sb.toString();
+        } else if (m instanceof GameMessage.Migrate mig) {
+            return mig.container();
+        } else if (m instanceof GameMessage.Ask a) {
+            // "Ask;2;Red,Red"
+            return "Ask;" + a.seat() + ";" + String.join(",", a.tokens().toList());
+        } else if (m instanceof GameMessage.Order o) {
+            // "Order;2;Red;Blue;NONE"
+            return "Order;" + o.seat() + ";" + GameConfig.colorName(o.need()) + ";" + GameConfig.colorName(o.offer())
+                    + ";" + GameConfig.colorName(o.paid());
+        } else if (m instanceof GameMessage.Fill f) {
+            // "Fill;2;Red;Blue"
+            return "Fill;" + f.partner() + ";" + GameConfig.colorName(f.got()) + ";" + GameConfig.colorName(f.paid());
+        } else if (m instanceof GameMessage.Sale sale) {
+            // "Sale;2;Red;NONE"
+            return "Sale;" + sale.partner() + ";" + GameConfig.colorName(sale.sold()) + ";" + GameConfig.colorName(sale.paid());
+        } else if (m instanceof GameMessage.TradeOffer o) {
+            // "2;0;Red"
+            return o.buyer() + ";" + o.seller() + ";" + GameConfig.colorName(o.color());
+        } else {
+            return GameConfig.colorName(((GameMessage.Payment) m).token());
+        }
+    }
+
+    public static GameMessage parseLegacy(ACLMessage msg) {
+        String content = msg.getContent();
+        // Without the session prefix of a hosted game ("<session>/your-turn")
+        String conversation = ConversationId.baseOf(msg.getConversationId());
+        switch (conversation) {
+            case "init": {
+                String[] parts = content.split(";");
+                String[] startCoords = parts[0].split(",");
+                String[] goalCoords = parts[1].split(",");
+                TokenBag tokens = parts.length > 2 ? TokenBag.of(Arrays.asList(parts[2].split(","))) : new TokenBag();
+                List<String> players = parts.length > 3 ? Arrays.asList(parts[3].split(",")) : new ArrayList<>();
+                return new GameMessage.Init(
+                        Integer.parseInt(startCoords[0]), Integer.parseInt(startCoords[1]),
+                        Integer.parseInt(goalCoords[0]), Integer.parseInt(goalCoords[1]),
+                        tokens, players);
+            }
+            case "your-turn": {
+                // "Color" or "Color;x,y"
+                String[] parts = content.split(";");
+                if (parts.length < 2) return new GameMessage.TurnRequest(GameConfig.colorIndex(parts[0]));
+                String[] target = parts[1].split(",");
+                return new GameMessage.TurnRequest(GameConfig.colorIndex(parts[0]),
+                        Integer.parseInt(target[0]), Integer.parseInt(target[1]));
+            }
+            case "turn-intent": {
+                String[] data = content.split(";");
+                switch (data[0]) {
+                    case "MOVE":
+                        return GameMessage.TurnIntent.move(DIRECTIONS.indexOf(data[1].charAt(0)));
+                    case "TRADE":
+                        return GameMessage.TurnIntent.trade(Integer.parseInt(data[1]),
+                                GameConfig.colorIndex(data[2]), GameConfig.colorIndex(data[3]));
+                    default:
+                        return GameMessage.TurnIntent.pass();
+                }
+            }
+            case "turn-delta": {
+                String[] data = content.split(";");
+                String[] step = data[0].split(",");
+                return new GameMessage.TurnDelta(Integer.parseInt(step[0]), Integer.parseInt(step[1]),
+                        GameConfig.colorIndex(data[1]), GameConfig.colorIndex(data[2]),
+                        Integer.parseInt(data[3]), data[4].equalsIgnoreCase("OUT"));
+            }
+            case "game-over":
+                return new GameMessage.GameOver(Integer.parseInt(content.trim()));
+            case "trade-report": {
+                Map<String, Integer> trades = new LinkedHashMap<>();
+                for (String entry : content.isEmpty() ? new String[0] : content.split(",")) {
+                    String[] kv = entry.split(":");
+                    trades.put(kv[0], Integer.parseInt(kv[1]));
+                }
+                return new GameMessage.TradeReport(trades);
+            }
+            case "placement":
+                return new GameMessage.Migrate(content);
+            case "trade-offer": {
+                String[] data = content.split(";");
+                return new GameMessage.TradeOffer(Integer.parseInt(data[0]), Integer.parseInt(data[1]), GameConfig.colorIndex(data[2]));
+            }
+            case "exchange": {
+                String[] data = content.split(";", -1);
+                int seat = Integer.parseInt(data[1]);
+                switch (data[0]) {
+                    case "Ask":
+                        return new GameMessage.Ask(seat, data[2].isEmpty() ? new TokenBag() : TokenBag.of(Arrays.asList(data[2].split(","))));
+                    case "Order":
+                        return new GameMessage.Order(seat, GameConfig.colorIndex(data[2]), GameConfig.colorIndex(data[3]), GameConfig.colorIndex(data[4]));
+                    case "Fill":
+                        return new GameMessage.Fill(seat, GameConfig.colorIndex(data[2]), GameConfig.colorIndex(data[3]));
+                    default:
+                        return new GameMessage.Sale(seat, GameConfig.colorIndex(data[2]), GameConfig.colorIndex(data[3]));
+                }
+            }
+            default:
+                // "negotiation" (old single-peer trades) or "negotiation-<id>" (calls for proposals)
+                if (conversation.startsWith("negotiation")) {
+                    return parseLegacyNegotiation(msg, content);
+                }
+                throw new IllegalArgumentException("Unknown conversation " + msg.getConversationId());
+        }
+    }
+
+    private static GameMessage parseLegacyNegotiation(ACLMessage msg, String content) {
+        int performative = msg.getPerformative();
+        if (performative == ACLMessage.CFP || content.startsWith("Need:")) {
+            String[] parts = content.split(";");
+            return new GameMessage.Proposal(
+                    GameConfig.colorIndex(parts[0].split(":")[1]),
+                    GameConfig.colorIndex(parts[1].split(":")[1]));
+        }
+        if (performative == ACLMessage.INFORM || performative == ACLMessage.ACCEPT_PROPOSAL) {
+            return new GameMessage.Payment(GameConfig.colorIndex(content));
+        }
+        return new GameMessage.ProposalReply(GameConfig.colorIndex(content));
+    }
+}
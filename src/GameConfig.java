@@ -3,75 +3,193 @@ import java.util.HashMap;
 import java.util.Map;
 
 public class GameConfig {
-    // Number of players in the game (up to 4)
-    public static final int NUM_PLAYERS = 4; // can change to 4
+    // Number of players in the game; override with -Dgame.players=N (any count that fits on the board)
+    public static final int NUM_PLAYERS = Integer.getInteger("game.players", 4);
 
-    // Grid size (width and height)
-    public static final int GRID_WIDTH = 7;
-    public static final int GRID_HEIGHT = 5;
+    // Grid size (width and height); override with -Dgame.width / -Dgame.height
+    public static final int GRID_WIDTH = Integer.getInteger("game.width", 7);
+    public static final int GRID_HEIGHT = Integer.getInteger("game.height", 5);
 
     public static final int CELL_SIZE = 100; 
     // Pixel size of each grid cell in the GUI
     
+    // Number of token colors; override with -Dgame.colors=N. The first four are named,
+    // the rest are generated ("Color5", ...) with evenly spread pastel hues.
+    public static final int NUM_COLORS = colorCount(Integer.getInteger("game.colors", 4));
+
+    // Colors fit in a byte everywhere: Board cells, GameCodec's u8 with 0xFF for NONE, and
+    // SearchStrategy's actions (every color, betray and pay nothing) below NO_ACTION (0xFF)
+    public static final int MAX_COLORS = 0xFF - 2;
+
+    private static int colorCount(int colors) {
+        if (colors > MAX_COLORS) {
+            throw new IllegalArgumentException("-Dgame.colors=" + colors + " is more than the " + MAX_COLORS + " colors supported");
+        }
+        return Math.max(1, colors);
+    }
+
+    private static final String[] BASE_COLOR_NAMES = {"Red", "Blue", "Green", "Yellow"};
+    private static final Color[] BASE_COLORS = {
+        new Color(255, 105, 97),  // bright pastel red (coral)
+        new Color(100, 149, 237), // cornflower blue
+        new Color(144, 238, 144), // light green (lime-ish)
+        new Color(255, 255, 153)  // soft sunny yellow
+    };
+
+    // Tokens available in the game, indexed by color ordinal
+    public static final String[] AVAILABLE_TOKENS = new String[NUM_COLORS];
+
     // Background color for each token color on the grid
     public static final Map<String, Color> COLOR_MAP = new HashMap<>();
+    private static final Map<String, Integer> COLOR_INDEX = new HashMap<>();
     static {
-        COLOR_MAP.put("Red", new Color(255, 105, 97));    // bright pastel red (coral)
-        COLOR_MAP.put("Blue", new Color(100, 149, 237));  // cornflower blue
-        COLOR_MAP.put("Green", new Color(144, 238, 144)); // light green (lime-ish)
-        COLOR_MAP.put("Yellow", new Color(255, 255, 153)); // soft sunny yellow
+        for (int i = 0; i < NUM_COLORS; i++) {
+            String name = i < BASE_COLOR_NAMES.length ? BASE_COLOR_NAMES[i] : "Color" + (i + 1);
+            Color color = i < BASE_COLORS.length ? BASE_COLORS[i] : Color.getHSBColor(goldenHue(i), 0.45f, 1f);
+            AVAILABLE_TOKENS[i] = name;
+            COLOR_MAP.put(name, color);
+            COLOR_INDEX.put(name, i);
+        }
+    }
+
+    // Encode ACL content with GameCodec's binary format (false = legacy text)
+    public static final boolean BINARY_MESSAGES = true;
+
+    // Default delay (milliseconds) between turns for visualization; 0 runs flat out.
+    // Override with -Dgame.turnDelayMs=..., or change it live with the GUI speed slider.
+    public static final int TURN_DELAY_MS = Integer.getInteger("game.turnDelayMs", 2000);
+
+    // GUI frames per second; moves published between frames are coalesced
+    public static final int FRAME_RATE = 30;
+
+    // How long MainAgent waits for a turn result; a late or missing reply counts as a
+    // blocked turn. Override with -Dgame.turnTimeoutMs=...
+    public static final int TURN_TIMEOUT_MS = Integer.getInteger("game.turnTimeoutMs", 5000);
+
+    // How long a blocked player collects bids for its call for proposals before
+    // accepting the best one; keep it well below TURN_TIMEOUT_MS
+    public static final int NEGOTIATION_TIMEOUT_MS = Integer.getInteger("game.negotiationTimeoutMs", 1000);
+
+    // ACL games (GameSession): ask every player still in at once and play all their intents as one
+    // round, instead of one player per turn. Turn with -Dgame.simultaneous=true
+    public static final boolean SIMULTANEOUS_TURNS = Boolean.getBoolean("game.simultaneous");
+
+    // Multi-container runs (StartJADE cluster): the agent players report their trades to,
+    // if any, and how often it re-plans which container each player lives in
+    public static final String PLACEMENT_AGENT = System.getProperty("game.placementAgent");
+    public static final int PLACEMENT_PERIOD_MS = Integer.getInteger("game.placementPeriodMs", 10_000);
+
+    // Token exchange (ExchangeLogic): the agent blocked players order their missing token from
+    // instead of calling for proposals, if any; the launchers start it under this name. Orders are
+    // matched in batches every EXCHANGE_BATCH_MS. A payment offered but not escrowed is a
+    // betrayal: the exchange fills such orders after the others and logs them, or refuses them
+    // with -Dgame.exchangeUnsecured=false
+    public static final String EXCHANGE_AGENT = System.getProperty("game.exchangeAgent");
+    public static final int EXCHANGE_BATCH_MS = Integer.getInteger("game.exchangeBatchMs", 20);
+    public static final boolean EXCHANGE_UNSECURED = Boolean.parseBoolean(System.getProperty("game.exchangeUnsecured", "true"));
+
+    // Trust in other players (Reputation): kept by each player for itself ("private"), or published
+    // into one table that every player reads ("shared": per JVM for the agents, per game in
+    // GameEngine). Scores halve every REPUTATION_HALF_LIFE_MS for the agents and every
+    // REPUTATION_HALF_LIFE_TURNS turns in GameEngine (0: no decay)
+    public static final boolean SHARED_REPUTATION = "shared".equals(System.getProperty("game.reputation", "private"));
+    public static final int REPUTATION_HALF_LIFE_MS = Integer.getInteger("game.reputationHalfLifeMs", 60_000);
+    public static final int REPUTATION_HALF_LIFE_TURNS = Integer.getInteger("game.reputationHalfLifeTurns", 25);
+
+    // Send a call for proposals to this many peers, the most trusted first, instead of to every
+    // peer (0). Override with -Dgame.cfpPeers=...
+    public static final int CFP_PEERS = Integer.getInteger("game.cfpPeers", 0);
+
+    // Call for proposals only the peers an InventoryBelief says most likely hold the color, until
+    // one of them does with CFP_CONFIDENCE, instead of every peer. Turn off with
+    // -Dgame.inventoryBelief=false; set the confidence with -Dgame.cfpConfidence=...
+    public static final boolean INVENTORY_BELIEF = Boolean.parseBoolean(System.getProperty("game.inventoryBelief", "true"));
+    public static final double CFP_CONFIDENCE = Double.parseDouble(System.getProperty("game.cfpConfidence", "0.99"));
+
+    // Ordinal of a token color in AVAILABLE_TOKENS, or -1 if unknown
+    public static int colorIndex(String color) {
+        Integer i = color == null ? null : COLOR_INDEX.get(color);
+        return i == null ? -1 : i;
+    }
+
+    // Name of a color ordinal, "NONE" for -1
+    public static String colorName(int color) {
+        return color < 0 ? "NONE" : AVAILABLE_TOKENS[color];
     }
 
-    // Delay (milliseconds) between agent turns for visualization
-    public static final int TURN_DELAY_MS = 2000;
-    
-    // Tokens available in the game (4 tokens, one per player max)
-    public static final String[] AVAILABLE_TOKENS = {"Red", "Blue", "Green", "Yellow"};
     // Number of tokens each player starts with
     public static final int TOKENS_PER_PLAYER = 7;
     
     // Probability that a player will betray in a token trade (0.0 to 1.0)
     public static final double BETRAYAL_PROBABILITY = 0.9;
+
+    // How players decide trades: "heuristic" (most common token, betray with
+    // BETRAYAL_PROBABILITY) or "search" (SearchStrategy lookahead).
+    // Override with -Dgame.strategy=...
+    public static final String STRATEGY = System.getProperty("game.strategy", "heuristic");
+
+    // Time a searching player may think per trade, in microseconds; override with -Dgame.searchBudgetUs=...
+    public static final int SEARCH_BUDGET_US = Integer.getInteger("game.searchBudgetUs", 2000);
     
     
+    // Plan moves with PathPlanner (cheapest path under the held tokens) instead of
+    // the greedy step. Turn off with -Dgame.pathPlanning=false
+    public static final boolean PATH_PLANNING = Boolean.parseBoolean(System.getProperty("game.pathPlanning", "true"));
+
     // Maximum allowed blocked turns before disqualification
     public static final int MAX_BLOCKED_TURNS = 3;
-    // Max number of turns before the game ends automatically
-    public static final int MAX_GAME_TURNS = 50;
+    // Max number of turns before the game ends automatically; override with -Dgame.maxTurns=...
+    public static final int MAX_GAME_TURNS = Integer.getInteger("game.maxTurns", 50);
+    // End a game as a draw as soon as FeasibilityAnalyzer finds no player can reach its goal any
+    // more, instead of playing it out. Turn off with -Dgame.earlyDraw=false
+    public static final boolean EARLY_DRAW = Boolean.parseBoolean(System.getProperty("game.earlyDraw", "true"));
+
+    // Player identities: the first four players keep their hand-picked look,
+    // later ones cycle through these pools and get generated trail colors
+    private static final String[] FLAGS = {"🍯", "🧀", "🌸", "🍌", "🍎", "🍇", "🍉", "🍒", "🍓", "🥕", "🌽", "🍄", "🥐", "🍩", "🍪", "🍀"};
+    private static final String[] EMOJIS = {"🐻", "🐭", "🐝", "🐵", "🐱", "🐶", "🦊", "🐼", "🐨", "🐯", "🦁", "🐮", "🐷", "🐸", "🐔", "🐧", "🐢", "🐙", "🦉", "🦄"};
+    private static final Color[] TRAIL_COLORS = {
+        new Color(0, 0, 0, 180),       // Semi-transparent black
+        new Color(255, 255, 255, 180), // Semi-transparent white
+        new Color(255, 0, 0, 180),     // Semi-transparent red
+        new Color(0, 0, 255, 180)      // Semi-transparent blue
+    };
+
+    // 1-based player number from "PlayerN", or 0 if the name has no number
+    public static int playerNumber(String playerName) {
+        int n = 0;
+        for (int i = 0; i < playerName.length(); i++) {
+            char c = playerName.charAt(i);
+            if (c >= '0' && c <= '9') n = n * 10 + (c - '0');
+        }
+        return n;
+    }
 
     // Player flags (goal emoji, shown on left-center)
     public static String getFlag(String playerName) {
-        return switch (playerName) {
-            case "Player1" -> "🍯";
-            case "Player2" -> "🧀";
-            case "Player3" -> "🌸";
-            case "Player4" -> "🍌";
-            default -> "🏁";
-        };
+        int n = playerNumber(playerName);
+        return n > 0 ? FLAGS[(n - 1) % FLAGS.length] : "🏁";
     }
 
     // Player emojis (shown center-right)
     public static String getPlayerEmoji(String playerName) {
-        return switch (playerName) {
-            case "Player1" -> "🐻";
-            case "Player2" -> "🐭";
-            case "Player3" -> "🐝";
-            case "Player4" -> "🐵";
-            default -> "❓";
-        };
+        int n = playerNumber(playerName);
+        return n > 0 ? EMOJIS[(n - 1) % EMOJIS.length] : "❓";
     }
 
     // Trail colors (semi-transparent colors for player trails)
     public static Color getTrailColor(String playerName) {
-        return switch (playerName) {
-            case "Player1" -> new Color(0, 0, 0, 180);       // Semi-transparent black
-            case "Player2" -> new Color(255, 255, 255, 180); // Semi-transparent white
-            case "Player3" -> new Color(255, 0, 0, 180);     // Semi-transparent red
-            case "Player4" -> new Color(0, 0, 255, 180);     // Semi-transparent blue
-            default -> Color.GRAY;
-        };
+        int n = playerNumber(playerName);
+        if (n <= 0) return Color.GRAY;
+        if (n <= TRAIL_COLORS.length) return TRAIL_COLORS[n - 1];
+        Color c = Color.getHSBColor(goldenHue(n), 0.9f, 0.8f);
+        return new Color(c.getRed(), c.getGreen(), c.getBlue(), 180);
     }
 
+    // Hues spaced by the golden angle stay distinct for any number of entries
+    private static float goldenHue(int i) {
+        return (float) ((i * 0.618033988749895) % 1.0);
+    }
 
     // Check if all players are blocked for the max allowed turns
     // Use in game logic: pass the blocked turns count of each player to check
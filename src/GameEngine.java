@@ -0,0 +1,289 @@
+import java.util.*;
+import java.util.random.RandomGenerator;
+
+// Pure-Java game rules: board generation, player setup, moves, trades,
+// betrayals and blocked turns. MainAgent and PlayerAgent delegate to these
+// rules; the engine can also play a whole game in-process without JADE,
+// Swing or any turn delay.
+public class GameEngine {
+
+    public static final int WIDTH = GameConfig.GRID_WIDTH;
+    public static final int HEIGHT = GameConfig.GRID_HEIGHT;
+    private final RandomGenerator rand;
+    private final int width;
+    private final int height;
+    private Board board;
+    private PathPlanner planner;
+    private final List<PlayerState> players = new ArrayList<>();
+    // Trade decisions, one per player (a strategy may keep state between calls)
+    private final List<PlayerStrategy> strategies = new ArrayList<>();
+    // Occupancy by player index; kept in step with every move
+    private PositionIndex positions;
+    private FeasibilityAnalyzer feasibility;
+    // Optional event record of every game this engine plays
+    private GameJournal journal;
+
+    private int turnCount = 0;
+    private int currentPlayerIndex = 0;
+    private int trades = 0;
+    private int betrayals = 0;
+    private int disqualified = 0;
+    private boolean gameOver = false;
+    private PlayerState winner;
+    // Ended as a draw because no player could reach its goal any more
+    private boolean stalled = false;
+
+    // Any generator works; batch runs pass a per-game SplittableRandom so results are reproducible
+    public GameEngine(RandomGenerator rand) {
+        this(rand, WIDTH, HEIGHT);
+    }
+
+    public GameEngine(RandomGenerator rand, int width, int height) {
+        this.rand = rand;
+        this.width = width;
+        this.height = height;
+    }
+
+    // Build a random board and deal start/goal/tokens to numPlayers players
+    public void setup(int numPlayers) {
+        setup(numPlayers, GameConfig.TOKENS_PER_PLAYER);
+    }
+
+    public void setup(int numPlayers, int tokensPerPlayer) {
+        if (numPlayers > width * height) {
+            throw new IllegalArgumentException(numPlayers + " players do not fit on a " + width + "x" + height + " board");
+        }
+        initGrid(numPlayers);
+        assignPlayers(numPlayers, tokensPerPlayer);
+        feasibility = new FeasibilityAnalyzer(board, players);
+        if (journal != null) journal.startGame(board, players);
+    }
+
+    private void initGrid(int numPlayers) {
+        board = Board.random(width, height, rand);
+        planner = new PathPlanner(board, numPlayers);
+    }
+
+    private void assignPlayers(int numPlayers, int tokensPerPlayer) {
+        positions = new PositionIndex(numPlayers);
+        // Trust decays by turns of this game; a shared table is the whole game's
+        Reputation shared = GameConfig.SHARED_REPUTATION ? newReputation() : null;
+
+        for (int i = 1; i <= numPlayers; i++) {
+            int startX, startY, goalX, goalY;
+
+            // Ensure unique start position
+            do {
+                startX = rand.nextInt(width);
+                startY = rand.nextInt(height);
+            } while (positions.isOccupied(startY * width + startX));
+            positions.place(i - 1, startY * width + startX);
+
+            // Ensure goal position different from start
+            do {
+                goalX = rand.nextInt(width);
+                goalY = rand.nextInt(height);
+            } while (goalX == startX && goalY == startY);
+
+            TokenBag tokens = new TokenBag();
+            for (int t = 0; t < tokensPerPlayer; t++) {
+                tokens.add(rand.nextInt(GameConfig.NUM_COLORS));
+            }
+
+            PlayerState player = new PlayerState("Player" + i, startX, startY, goalX, goalY, tokens);
+            player.setReputation(shared != null ? shared : newReputation());
+            players.add(player);
+            strategies.add(PlayerStrategy.fromConfig(rand));
+        }
+    }
+
+    private Reputation newReputation() {
+        return new Reputation(GameConfig.REPUTATION_HALF_LIFE_TURNS, () -> turnCount);
+    }
+
+    // Greedy step: move along the axis with the larger remaining distance
+    public static int nextX(int x, int y, int goalX, int goalY) {
+        int dx = goalX - x;
+        int dy = goalY - y;
+        return Math.abs(dx) >= Math.abs(dy) ? x + Integer.signum(dx) : x;
+    }
+
+    public static int nextY(int x, int y, int goalX, int goalY) {
+        int dx = goalX - x;
+        int dy = goalY - y;
+        return Math.abs(dx) >= Math.abs(dy) ? y : y + Integer.signum(dy);
+    }
+
+    // Board index of the cell the player at the index moves to next: the planned path, or the greedy step
+    public int nextStep(int index) {
+        PlayerState p = players.get(index);
+        if (GameConfig.PATH_PLANNING) {
+            return planner.nextStep(index, p.getX(), p.getY(), p.getGoalX(), p.getGoalY(), p.getTokens());
+        }
+        return board.index(nextX(p.getX(), p.getY(), p.getGoalX(), p.getGoalY()),
+                nextY(p.getX(), p.getY(), p.getGoalX(), p.getGoalY()));
+    }
+
+    // Betrayal roll shared by the agents and the engine
+    public static boolean isHonest(RandomGenerator rand) {
+        return rand.nextDouble() > GameConfig.BETRAYAL_PROBABILITY;
+    }
+
+    /**
+     * Play one turn of the current player. Disqualified players are skipped.
+     * Returns false once the game is over.
+     */
+    public boolean playTurn() {
+        if (gameOver) return false;
+
+        int index = currentPlayerIndex;
+        PlayerState p = players.get(index);
+        currentPlayerIndex = (currentPlayerIndex + 1) % players.size();
+        if (p.isDisqualified()) return true;
+
+        turnCount++;
+
+        int next = nextStep(index);
+        int nextX = next % width;
+        int nextY = next / width;
+        int requiredColor = board.colorAt(next);
+        if (journal != null) journal.turn(turnCount, index, next, requiredColor);
+
+        if (p.tryMove(nextX, nextY, requiredColor)) {
+            positions.place(index, next);
+            feasibility.moved(index, requiredColor);
+            if (journal != null) journal.move(index, next, requiredColor);
+        } else {
+            p.incrementBlockedTurns();
+            if (journal != null) journal.block(index, p.getBlockedTurns(), requiredColor);
+            if (!negotiate(index, requiredColor) && p.getBlockedTurns() >= GameConfig.MAX_BLOCKED_TURNS) {
+                p.setDisqualified(true);
+                disqualified++;
+                if (journal != null) journal.disqualify(index);
+            }
+        }
+
+        if (p.isAtGoal()) {
+            winner = p;
+            gameOver = true;
+        } else if (disqualified == players.size()) {
+            gameOver = true;
+        } else if (turnCount >= GameConfig.MAX_GAME_TURNS) {
+            // Honest traders can pass one scarce token back and forth forever
+            gameOver = true;
+        } else if (GameConfig.EARLY_DRAW && !feasibility.anyCanFinish()) {
+            stalled = true;
+            gameOver = true;
+        }
+
+        if (journal != null) {
+            if (gameOver) journal.end(getWinnerIndex());
+            else if (turnCount % GameJournal.CHECKPOINT_TURNS == 0) journal.checkpoint(players);
+        }
+        return !gameOver;
+    }
+
+    // One PROPOSE / ACCEPT round between the blocked player and its chosen peer
+    private boolean negotiate(int index, int need) {
+        PlayerState p = players.get(index);
+        if (players.size() < 2) return false;
+        // Most trusted peer, first in seating order on ties
+        int partner = p.getReputation().mostTrustedIndex(new PeerNames(index));
+        if (partner >= index) partner++;
+        PlayerState other = players.get(partner);
+
+        PlayerStrategy strategy = strategies.get(index);
+        int offer = strategy.offerColor(p, need, new PeerNames(index));
+        if (journal != null) journal.proposal(index, need, offer);
+
+        if (!other.acceptsProposal(p.getName(), need)) {
+            p.recordRefusal(other.getName());
+            if (journal != null) journal.reject(index, partner);
+            return false;
+        }
+
+        other.removeToken(need);
+        if (strategy.paysHonestly(p, other.getName(), offer) && offer >= 0) {
+            p.removeToken(offer);
+            other.addToken(offer);
+            p.recordTrade(other.getName());
+            other.recordTrade(p.getName());
+            if (journal != null) journal.accept(index, partner, need, offer);
+        } else {
+            // The victim keeps the grudge; we only remember what we did
+            p.recordBetrayal(other.getName());
+            other.recordBetrayedBy(p.getName());
+            p.recordTrade(other.getName());
+            betrayals++;
+            if (journal != null) {
+                journal.accept(index, partner, need, -1);
+                journal.betrayal(index, partner);
+            }
+        }
+        p.addToken(need);
+        trades++;
+        return true;
+    }
+
+    // Names of everyone but one player, without copying the list
+    private final class PeerNames extends AbstractList<String> {
+        private final int self;
+
+        PeerNames(int self) {
+            this.self = self;
+        }
+
+        @Override
+        public String get(int i) {
+            return players.get(i < self ? i : i + 1).getName();
+        }
+
+        @Override
+        public int size() {
+            return players.size() - 1;
+        }
+    }
+
+    // Play until someone reaches their goal, everybody is disqualified, nobody can reach a goal
+    // any more, or MAX_GAME_TURNS runs out
+    public void run() {
+        while (playTurn()) {
+            // keep playing
+        }
+    }
+
+    public boolean allPlayersBlocked() {
+        for (PlayerState p : players) {
+            if (!p.isDisqualified() && p.getBlockedTurns() < GameConfig.MAX_BLOCKED_TURNS) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public PlayerState getPlayer(String name) {
+        for (PlayerState p : players) {
+            if (p.getName().equals(name)) return p;
+        }
+        return null;
+    }
+
+    public Board getBoard() { return board; }
+    public PositionIndex getPositions() { return positions; }
+    public FeasibilityAnalyzer getFeasibility() { return feasibility; }
+    public PathPlanner getPlanner() { return planner; }
+    public GameJournal getJournal() { return journal; }
+    // Record games from the next setup() on (null turns recording off)
+    public void setJournal(GameJournal journal) { this.journal = journal; }
+    public PlayerStrategy getStrategy(int index) { return strategies.get(index); }
+    public void setStrategy(int index, PlayerStrategy strategy) { strategies.set(index, strategy); }
+    public Case[][] getGrid() { return board.toCases(); }
+    public List<PlayerState> getPlayers() { return players; }
+    public int getTurnCount() { return turnCount; }
+    public int getTrades() { return trades; }
+    public int getBetrayals() { return betrayals; }
+    public boolean isGameOver() { return gameOver; }
+    public boolean isStalled() { return stalled; }
+    public PlayerState getWinner() { return winner; }
+    public int getWinnerIndex() { return winner == null ? -1 : players.indexOf(winner); }
+}
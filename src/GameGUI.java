@@ -1,133 +1,124 @@
 import javax.swing.*;
 import java.awt.*;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.List;
-import java.util.ArrayList;
-
+import java.awt.event.MouseWheelEvent;
+import java.util.ArrayDeque;
+import java.util.Hashtable;
+
+// Renders the latest GameSnapshot at a fixed frame rate. Moves published
+// between two frames are coalesced into one repaint; the trail walk still
+// records every cell a player visited. The board sits in a scrollable
+// viewport; Ctrl + mouse wheel zooms around the pointer.
 public class GameGUI extends JFrame {
 
-    private static final int CELL_SIZE = GameConfig.CELL_SIZE;
+    // Playback speeds offered by the slider, in turns per second (0 = flat out)
+    private static final double[] SPEEDS = {0.25, 0.5, 1, 2, 5, 10, 50, 0};
+    private static final String[] SPEED_LABELS = {"¼", "½", "1", "2", "5", "10", "50", "Max"};
+
+    private final BoardView board;
+    private final SnapshotExchange snapshots;
+    private final Timer frameTimer;
 
-    private final Map<String, Point> playerGoals = new HashMap<>();
-    private final Map<String, Point> playerPositions = new HashMap<>();
-    private final Map<String, List<Point>> playerTrails = new HashMap<>();
+    private GameSnapshot rendered;
+    private GameSnapshot.Trail[] seen = new GameSnapshot.Trail[0];
 
-    private JPanel[][] cells;
+    public GameGUI(Board grid, SnapshotExchange snapshots, TurnPacer pacer) {
+        this.snapshots = snapshots;
 
-    public GameGUI(Case[][] grid) {
         setTitle("Colored Trails Game");
-        setSize(CELL_SIZE * grid[0].length + 50, CELL_SIZE * grid.length + 50);
         // setLocationRelativeTo(null); // Center on screen
         setDefaultCloseOperation(EXIT_ON_CLOSE);
-        setLayout(new GridLayout(grid.length, grid[0].length));
-
-        cells = new JPanel[grid.length][grid[0].length];
-
-        for (int y = 0; y < grid.length; y++) {
-            for (int x = 0; x < grid[0].length; x++) {
-                JPanel panel = new JPanel();
-                panel.setBackground(GameConfig.COLOR_MAP.getOrDefault(grid[y][x].getColor(), Color.LIGHT_GRAY));
-                panel.setBorder(BorderFactory.createLineBorder(Color.black));
-                panel.setLayout(new OverlayLayout(panel));
-                add(panel);
-                cells[y][x] = panel;
-            }
-        }
 
-        setVisible(true);
-    }
-       
-    public void updatePlayerPosition(String playerName, int x, int y, int goalX, int goalY) {
-        SwingUtilities.invokeLater(() -> {
-            resetOverlay();
-
-            // Update player goal and position
-            playerGoals.put(playerName, new Point(goalX, goalY));
-            playerPositions.put(playerName, new Point(x, y));
-
-            // Update player's trail list
-            playerTrails.putIfAbsent(playerName, new ArrayList<>());
-            List<Point> trail = playerTrails.get(playerName);
-            Point currentPos = new Point(x, y);
-            if (trail.isEmpty() || !trail.get(trail.size() - 1).equals(currentPos)) {
-                trail.add(currentPos);
+        // Full-size cells on small boards, shrink to fit about 1200 px on big ones
+        int fit = 1200 / Math.max(grid.getWidth(), grid.getHeight());
+        board = new BoardView(grid, Math.max(BoardView.MIN_CELL_SIZE, Math.min(GameConfig.CELL_SIZE, fit)));
+
+        JScrollPane scroll = new JScrollPane(board);
+        board.addMouseWheelListener(e -> {
+            if (e.isControlDown()) {
+                zoom(scroll, e);
+            } else {
+                // Let the scroll pane handle plain wheel scrolling
+                scroll.dispatchEvent(SwingUtilities.convertMouseEvent(board, e, scroll));
             }
+        });
+        add(scroll, BorderLayout.CENTER);
+        add(speedControl(pacer), BorderLayout.SOUTH);
+        pack();
 
-            // --- Draw goal overlays ---
-            for (Map.Entry<String, Point> entry : playerGoals.entrySet()) {
-                String player = entry.getKey();
-                Point goal = entry.getValue();
-                JPanel goalCell = cells[goal.y][goal.x];
-                goalCell.setBorder(BorderFactory.createLineBorder(Color.black, 3));
-                goalCell.setLayout(null); // Absolute layout
-
-                String flag = GameConfig.getFlag(player);
-                JLabel flagLabel = new JLabel(flag);
-                flagLabel.setFont(new Font("Segoe UI Emoji", Font.PLAIN, 24));
-                flagLabel.setBounds(CELL_SIZE / 4 - 6, CELL_SIZE / 2 - 16, 32, 32);
-                goalCell.add(flagLabel);
-
-                // Goal label (bottom-center): "Goal PlayerX"
-                String playerNumber = player.replaceAll("\\D", ""); // Remove non-digits, keep only numbers
-                JLabel goalLabel = new JLabel("Goal " + playerNumber);
-                goalLabel.setFont(new Font("Arial", Font.BOLD, 10));
-                goalLabel.setForeground(Color.BLACK);
-                goalLabel.setBounds(0, CELL_SIZE - 20, CELL_SIZE, 15);
-                goalLabel.setHorizontalAlignment(SwingConstants.CENTER);
-                goalCell.add(goalLabel);
-            }
+        frameTimer = new Timer(1000 / GameConfig.FRAME_RATE, e -> renderLatest());
+        frameTimer.start();
 
-            // --- Draw trail dots ---
-            for (Map.Entry<String, List<Point>> trailEntry : playerTrails.entrySet()) {
-                Color trailColor = GameConfig.getTrailColor(trailEntry.getKey());
-                for (Point pt : trailEntry.getValue()) {
-                    JPanel cell = cells[pt.y][pt.x];
-                    JLabel dotLabel = new JLabel("•");
-                    dotLabel.setFont(new Font("Arial", Font.BOLD, 18));
-                    dotLabel.setForeground(trailColor);
-                    dotLabel.setHorizontalAlignment(SwingConstants.CENTER);
-                    dotLabel.setAlignmentX(0.5f);
-                    dotLabel.setAlignmentY(0.5f);
-                    cell.add(dotLabel);
-                }
-            }
+        setVisible(true);
+    }
 
-            // --- Draw players with name label ---
-            for (Map.Entry<String, Point> playerEntry : playerPositions.entrySet()) {
-                String player = playerEntry.getKey();
-                Point pos = playerEntry.getValue();
-                JPanel playerCell = cells[pos.y][pos.x];
-                playerCell.setLayout(null); // Absolute layout
-
-                String emoji = GameConfig.getPlayerEmoji(player);
-                JLabel playerLabel = new JLabel(emoji);
-                playerLabel.setFont(new Font("Segoe UI Emoji", Font.PLAIN, 28));
-                playerLabel.setBounds((CELL_SIZE * 3 / 4) - 16, CELL_SIZE / 2 - 16, 32, 32);  // Approach center from right
-                playerCell.add(playerLabel);
-
-                // Player name (below emoji)
-                JLabel nameLabel = new JLabel(player);
-                nameLabel.setFont(new Font("Arial", Font.PLAIN, 10));
-                nameLabel.setForeground(Color.DARK_GRAY);
-                nameLabel.setBounds(CELL_SIZE - 50, CELL_SIZE / 2 + 18, 45, 15); // Below emoji
-                nameLabel.setHorizontalAlignment(SwingConstants.RIGHT);
-                playerCell.add(nameLabel);
-            }
+    private JComponent speedControl(TurnPacer pacer) {
+        JSlider slider = new JSlider(0, SPEEDS.length - 1, closestSpeed(pacer.getDelayMillis()));
+        Hashtable<Integer, JLabel> labels = new Hashtable<>();
+        for (int i = 0; i < SPEED_LABELS.length; i++) labels.put(i, new JLabel(SPEED_LABELS[i]));
+        slider.setLabelTable(labels);
+        slider.setPaintLabels(true);
+        slider.setSnapToTicks(true);
+        slider.setMajorTickSpacing(1);
+        slider.addChangeListener(e -> pacer.setTurnsPerSecond(SPEEDS[slider.getValue()]));
+
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.add(new JLabel("  Turns/s "), BorderLayout.WEST);
+        panel.add(slider, BorderLayout.CENTER);
+        return panel;
+    }
 
-            repaint();
-        });
+    // Zoom by one wheel step, keeping the cell under the pointer in place
+    private void zoom(JScrollPane scroll, MouseWheelEvent e) {
+        int old = board.getCellSize();
+        int size = e.getWheelRotation() < 0 ? Math.max(old + 1, old * 5 / 4) : old * 4 / 5;
+        JViewport viewport = scroll.getViewport();
+        Point view = viewport.getViewPosition();
+        Point mouse = e.getPoint();
+
+        board.setCellSize(size);
+        double scale = (double) board.getCellSize() / old;
+        scroll.validate();
+        viewport.setViewPosition(new Point(
+                Math.max(0, (int) (mouse.x * scale) - (mouse.x - view.x)),
+                Math.max(0, (int) (mouse.y * scale) - (mouse.y - view.y))));
     }
 
-    private void resetOverlay() {
-        for (JPanel[] row : cells) {
-            for (JPanel panel : row) {
-                panel.removeAll();
-                panel.setBorder(BorderFactory.createLineBorder(new Color(200, 200, 200, 220), 1));
-                panel.setLayout(new OverlayLayout(panel));
+    private static int closestSpeed(long delayMillis) {
+        if (delayMillis <= 0) return SPEEDS.length - 1;
+        double tps = 1000.0 / delayMillis;
+        int best = 0;
+        for (int i = 1; i < SPEEDS.length - 1; i++) {
+            if (Math.abs(SPEEDS[i] - tps) < Math.abs(SPEEDS[best] - tps)) best = i;
+        }
+        return best;
+    }
 
+    // Apply the newest snapshot, if any; called by the frame timer on the EDT
+    public void renderLatest() {
+        GameSnapshot s = snapshots.latest();
+        if (s == null || s == rendered) return;
+
+        long start = System.nanoTime();
+        if (seen.length != s.size()) seen = new GameSnapshot.Trail[s.size()];
+        ArrayDeque<GameSnapshot.Trail> missed = new ArrayDeque<>();
+        for (int i = 0; i < s.size(); i++) {
+            // Replay every cell visited since the last frame, oldest first
+            for (GameSnapshot.Trail t = s.trail(i); t != null && t != seen[i]; t = t.prev) {
+                missed.push(t);
             }
+            while (!missed.isEmpty()) {
+                GameSnapshot.Trail t = missed.pop();
+                board.updatePlayer(s.name(i), t.x, t.y, s.goalX(i), s.goalY(i));
+            }
+            seen[i] = s.trail(i);
         }
+        rendered = s;
+        GameMetrics.get().guiUpdate(System.nanoTime() - start);
     }
 
-}
\ No newline at end of file
+    @Override
+    public void dispose() {
+        frameTimer.stop();
+        super.dispose();
+    }
+}
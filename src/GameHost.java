@@ -0,0 +1,14 @@
+import jade.core.Agent;
+
+// A HostLogic on JADE: many game sessions in one agent. Agent arguments: host
+// index, host count, games in total, sessions open at once, player pool size,
+// master seed (see HostLogic).
+public class GameHost extends Agent implements AgentPort {
+
+    @Override
+    protected void setup() {
+        HostLogic logic = new HostLogic(getArguments());
+        logic.start(this);
+        addBehaviour(new LogicBehaviour(logic));
+    }
+}
@@ -0,0 +1,269 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+// Append-only binary record of games: setup, turns, moves, trades, betrayals,
+// blocks. Every record is RECORD_SIZE bytes, little-endian:
+//
+//   type:u8  c1:u8  c2:u8  pad:u8  i1:i32  i2:i32  i3:i32
+//
+// Colors and color counts are unsigned bytes (GameConfig.MAX_COLORS fits);
+// a c2 of NO_COLOR (0xFF) stands for -1.
+//
+//   GAME        i1 width   i2 height   i3 players   c1 colors
+//   BOARD       i1..i3: the next 12 cell colors, one byte each (row-major)
+//   PLAYER      i1 player  i2 start cell  i3 goal cell
+//   TOKENS      i1 player  i2 count  c1 color
+//   TURN        i1 turn  i2 player  i3 target cell  c1 required color
+//   MOVE        i1 turn  i2 player  i3 cell  c1 color paid
+//   BLOCK       i1 turn  i2 player  i3 blocked turns  c1 needed color
+//   PROPOSAL    i1 turn  i2 player  c1 need  c2 offer (-1: nothing)
+//   ACCEPT      i1 turn  i2 player  i3 partner  c1 need  c2 payment (-1: betrayed)
+//   REJECT      i1 turn  i2 player  i3 partner (no trade with it)
+//   BETRAYAL    i1 turn  i2 player  i3 partner
+//   DISQUALIFY  i1 turn  i2 player
+//   END         i1 turn  i2 winner (-1: draw)
+//   CHECKPOINT  i1 turn  i2 players, then a STATE and TOKENS records per player
+//   STATE       i1 player  i2 cell  i3 blocked turns  c1 disqualified
+//
+// Players are 0-based seat indexes, cells are board indexes (y * width + x).
+// Event records use the turn of the last TURN record, so callers that do not
+// know the turn number (PlayerAgent) can still write them.
+//
+// Records go to memory-mapped segment files of SEGMENT_RECORDS records each;
+// a zero type marks the end. Appending is a few stores into the mapped page,
+// with no system call or allocation. The index file lists where each game
+// starts and where each checkpoint is, so GameReplay can jump to any turn:
+// a game starts a new game number, and callers write a checkpoint every
+// CHECKPOINT_TURNS turns. Enable with -Dgame.journal=<directory>.
+public class GameJournal implements AutoCloseable {
+
+    public static final int RECORD_SIZE = 16;
+    public static final int SEGMENT_RECORDS = 1 << 20;
+    public static final int CHECKPOINT_TURNS = 256;
+
+    public static final byte GAME = 1, BOARD = 2, PLAYER = 3, TOKENS = 4, TURN = 5, MOVE = 6, BLOCK = 7,
+            PROPOSAL = 8, ACCEPT = 9, REJECT = 10, BETRAYAL = 11, DISQUALIFY = 12, END = 13,
+            CHECKPOINT = 14, STATE = 15;
+
+    // c2 of a PROPOSAL or ACCEPT with no token: nothing offered, or betrayed
+    public static final int NO_COLOR = 0xFF;
+
+    // Index file: header (magic, version, segment records, entries), then
+    // entries (game:i32, turn:i32, record:i64); turn 0 is the game start
+    static final int INDEX_MAGIC = 0x4C4E4A47; // "GJNL"
+    static final int INDEX_VERSION = 1;
+    static final int INDEX_HEADER = 16;
+    static final int INDEX_ENTRY = 16;
+
+    private static GameJournal shared;
+
+    private final Path dir;
+    private MappedByteBuffer segment;
+    private int segmentNumber = -1;
+    private long records = 0;
+
+    private MappedByteBuffer index;
+    private FileChannel indexChannel;
+    private int indexEntries = 0;
+
+    private int game = -1;
+    private int turn = 0;
+    private int width;
+
+    // Starts a new journal in dir, replacing any journal already there
+    public GameJournal(Path dir) throws IOException {
+        this.dir = dir;
+        Files.createDirectories(dir);
+        try (var old = Files.newDirectoryStream(dir, "journal-*.seg")) {
+            for (Path p : old) Files.delete(p);
+        }
+        indexChannel = FileChannel.open(indexFile(dir), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        mapIndex(INDEX_HEADER + 1024 * INDEX_ENTRY);
+        index.putInt(0, INDEX_MAGIC);
+        index.putInt(4, INDEX_VERSION);
+        index.putInt(8, SEGMENT_RECORDS);
+        index.putInt(12, 0);
+    }
+
+    /**
+     * Journal shared by every agent in this JVM, opened on first use in the
+     * -Dgame.journal directory, or null when journaling is off.
+     */
+    public static synchronized GameJournal shared() {
+        String path = System.getProperty("game.journal");
+        if (shared == null && path != null && !path.isEmpty()) {
+            try {
+                shared = new GameJournal(Paths.get(path));
+                GameLog.info("Journal", "writing to {}", path);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return shared;
+    }
+
+    static Path segmentFile(Path dir, int n) {
+        return dir.resolve(String.format("journal-%05d.seg", n));
+    }
+
+    static Path indexFile(Path dir) {
+        return dir.resolve("journal.idx");
+    }
+
+    // Game header: size, board colors, and each player's start, goal and tokens
+    public synchronized void startGame(Board board, List<PlayerState> players) {
+        game++;
+        turn = 0;
+        width = board.getWidth();
+        addIndex(0);
+        append(GAME, GameConfig.NUM_COLORS, 0, board.getWidth(), board.getHeight(), players.size());
+
+        int cells = board.getWidth() * board.getHeight();
+        for (int i = 0; i < cells; i += 12) {
+            append(BOARD, 0, 0, packCells(board, i), packCells(board, i + 4), packCells(board, i + 8));
+        }
+        for (int p = 0; p < players.size(); p++) {
+            PlayerState s = players.get(p);
+            append(PLAYER, 0, 0, p, s.getY() * width + s.getX(), s.getGoalY() * width + s.getGoalX());
+            appendTokens(p, s.getTokens());
+        }
+    }
+
+    public synchronized void turn(int turn, int player, int target, int color) {
+        this.turn = turn;
+        append(TURN, color, 0, turn, player, target);
+    }
+
+    public synchronized void move(int player, int cell, int color) {
+        append(MOVE, color, 0, turn, player, cell);
+    }
+
+    public synchronized void block(int player, int blockedTurns, int need) {
+        append(BLOCK, need, 0, turn, player, blockedTurns);
+    }
+
+    public synchronized void proposal(int player, int need, int offer) {
+        append(PROPOSAL, need, offer, turn, player, 0);
+    }
+
+    public synchronized void accept(int player, int partner, int need, int payment) {
+        append(ACCEPT, need, payment, turn, player, partner);
+    }
+
+    public synchronized void reject(int player, int partner) {
+        append(REJECT, 0, 0, turn, player, partner);
+    }
+
+    public synchronized void betrayal(int player, int partner) {
+        append(BETRAYAL, 0, 0, turn, player, partner);
+    }
+
+    public synchronized void disqualify(int player) {
+        append(DISQUALIFY, 0, 0, turn, player, 0);
+    }
+
+    public synchronized void end(int winner) {
+        append(END, 0, 0, turn, winner, 0);
+    }
+
+    // Full player state, so a replay can start here instead of at the game start
+    public synchronized void checkpoint(List<PlayerState> players) {
+        addIndex(turn);
+        append(CHECKPOINT, 0, 0, turn, players.size(), 0);
+        for (int p = 0; p < players.size(); p++) {
+            PlayerState s = players.get(p);
+            append(STATE, s.isDisqualified() ? 1 : 0, 0, p, s.getY() * width + s.getX(), s.getBlockedTurns());
+            appendTokens(p, s.getTokens());
+        }
+    }
+
+    public synchronized long size() {
+        return records;
+    }
+
+    public synchronized int games() {
+        return game + 1;
+    }
+
+    // Flush mapped pages to disk
+    public synchronized void force() {
+        if (segment != null) segment.force();
+        index.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        force();
+        indexChannel.close();
+        segment = null;
+        index = null;
+    }
+
+    private void appendTokens(int player, TokenBag tokens) {
+        for (int c = 0; c < GameConfig.NUM_COLORS; c++) {
+            if (tokens.count(c) > 0) append(TOKENS, c, 0, player, tokens.count(c), 0);
+        }
+    }
+
+    private void append(byte type, int c1, int c2, int i1, int i2, int i3) {
+        int slot = (int) (records % SEGMENT_RECORDS);
+        if (slot == 0) nextSegment();
+        int at = slot * RECORD_SIZE;
+        segment.put(at, type);
+        segment.put(at + 1, (byte) c1);
+        segment.put(at + 2, (byte) c2);
+        segment.putInt(at + 4, i1);
+        segment.putInt(at + 8, i2);
+        segment.putInt(at + 12, i3);
+        records++;
+    }
+
+    private void nextSegment() {
+        segmentNumber++;
+        try (FileChannel channel = FileChannel.open(segmentFile(dir, segmentNumber), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping outlives the channel; the file is sparse until written
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) SEGMENT_RECORDS * RECORD_SIZE);
+            segment.order(ByteOrder.LITTLE_ENDIAN);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void addIndex(int turn) {
+        int at = INDEX_HEADER + indexEntries * INDEX_ENTRY;
+        if (at + INDEX_ENTRY > index.capacity()) mapIndex(index.capacity() * 2L);
+        index.putInt(at, game);
+        index.putInt(at + 4, turn);
+        index.putLong(at + 8, records);
+        index.putInt(12, ++indexEntries);
+    }
+
+    private void mapIndex(long size) {
+        try {
+            index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            index.order(ByteOrder.LITTLE_ENDIAN);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Four cell colors starting at cell i, one byte each, low byte first
+    private static int packCells(Board board, int i) {
+        int cells = board.getWidth() * board.getHeight();
+        int packed = 0;
+        for (int k = 0; k < 4 && i + k < cells; k++) {
+            packed |= (board.colorAt(i + k) & 0xFF) << (8 * k);
+        }
+        return packed;
+    }
+}
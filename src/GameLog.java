@@ -0,0 +1,229 @@
+import java.io.PrintStream;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Leveled logging for the agents without touching stdout on their threads.
+// A call below the level returns after one comparison. Otherwise it copies
+// the source, the message template and its arguments into a preallocated
+// slot of a ring buffer and returns; a background thread formats the line
+// ("{}" placeholders, filled in order) and writes it out. Nothing is
+// formatted or concatenated on the caller's thread.
+//
+// Arguments are formatted later, so they must not change after the call.
+// Strings, numbers and colors (pass GameConfig.colorName) are safe; a
+// TokenBag argument is copied into the slot, so a changing inventory logs
+// as it was at the call.
+//
+// A full buffer makes callers wait for the writer: lines are never dropped.
+// Pending lines are written at JVM exit. Level: -Dgame.logLevel=error|warn|info|debug
+public final class GameLog {
+
+    public enum Level { ERROR, WARN, INFO, DEBUG }
+
+    private static final int CAPACITY = 1 << 14;
+    private static final int MASK = CAPACITY - 1;
+    private static final int MAX_ARGS = 4;
+    private static final long IDLE_NANOS = 1_000_000;
+
+    private static volatile int threshold = Level.valueOf(System.getProperty("game.logLevel", "info").toUpperCase()).ordinal();
+
+    // One line waiting to be written; published holds its sequence number once complete
+    private static final class Entry {
+        volatile long published = -1;
+        Level level;
+        long millis;
+        String source;
+        String format;
+        int argc;
+        final Object[] args = new Object[MAX_ARGS];
+        final TokenBag[] bags = new TokenBag[MAX_ARGS];
+    }
+
+    private static final Entry[] ring = new Entry[CAPACITY];
+    private static final AtomicLong claimed = new AtomicLong();
+    private static final AtomicLong written = new AtomicLong();
+    private static final PrintStream out = System.out;
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss");
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    // Writer thread only: time of day of the last second formatted
+    private static long clockSecond = -1;
+    private static String clock;
+
+    static {
+        for (int i = 0; i < CAPACITY; i++) ring[i] = new Entry();
+        Thread writer = new Thread(GameLog::drain, "game-log");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(GameLog::flush, "game-log-flush"));
+    }
+
+    private GameLog() {
+    }
+
+    public static boolean isEnabled(Level level) {
+        return level.ordinal() <= threshold;
+    }
+
+    public static void setLevel(Level level) {
+        threshold = level.ordinal();
+    }
+
+    public static void error(String source, String format) {
+        if (Level.ERROR.ordinal() <= threshold) log(Level.ERROR, source, format, 0, null, null, null, null);
+    }
+
+    public static void error(String source, String format, Object a) {
+        if (Level.ERROR.ordinal() <= threshold) log(Level.ERROR, source, format, 1, a, null, null, null);
+    }
+
+    public static void warn(String source, String format) {
+        if (Level.WARN.ordinal() <= threshold) log(Level.WARN, source, format, 0, null, null, null, null);
+    }
+
+    public static void warn(String source, String format, Object a) {
+        if (Level.WARN.ordinal() <= threshold) log(Level.WARN, source, format, 1, a, null, null, null);
+    }
+
+    public static void warn(String source, String format, Object a, Object b) {
+        if (Level.WARN.ordinal() <= threshold) log(Level.WARN, source, format, 2, a, b, null, null);
+    }
+
+    public static void warn(String source, String format, Object a, Object b, Object c) {
+        if (Level.WARN.ordinal() <= threshold) log(Level.WARN, source, format, 3, a, b, c, null);
+    }
+
+    public static void info(String source, String format) {
+        if (Level.INFO.ordinal() <= threshold) log(Level.INFO, source, format, 0, null, null, null, null);
+    }
+
+    public static void info(String source, String format, Object a) {
+        if (Level.INFO.ordinal() <= threshold) log(Level.INFO, source, format, 1, a, null, null, null);
+    }
+
+    public static void info(String source, String format, Object a, Object b) {
+        if (Level.INFO.ordinal() <= threshold) log(Level.INFO, source, format, 2, a, b, null, null);
+    }
+
+    public static void info(String source, String format, Object a, Object b, Object c) {
+        if (Level.INFO.ordinal() <= threshold) log(Level.INFO, source, format, 3, a, b, c, null);
+    }
+
+    public static void info(String source, String format, Object a, Object b, Object c, Object d) {
+        if (Level.INFO.ordinal() <= threshold) log(Level.INFO, source, format, 4, a, b, c, d);
+    }
+
+    public static void debug(String source, String format) {
+        if (Level.DEBUG.ordinal() <= threshold) log(Level.DEBUG, source, format, 0, null, null, null, null);
+    }
+
+    public static void debug(String source, String format, Object a) {
+        if (Level.DEBUG.ordinal() <= threshold) log(Level.DEBUG, source, format, 1, a, null, null, null);
+    }
+
+    public static void debug(String source, String format, Object a, Object b) {
+        if (Level.DEBUG.ordinal() <= threshold) log(Level.DEBUG, source, format, 2, a, b, null, null);
+    }
+
+    public static void debug(String source, String format, Object a, Object b, Object c) {
+        if (Level.DEBUG.ordinal() <= threshold) log(Level.DEBUG, source, format, 3, a, b, c, null);
+    }
+
+    public static void debug(String source, String format, Object a, Object b, Object c, Object d) {
+        if (Level.DEBUG.ordinal() <= threshold) log(Level.DEBUG, source, format, 4, a, b, c, d);
+    }
+
+    // Wait (up to a second) until every line logged so far is written
+    public static void flush() {
+        long target = claimed.get();
+        long deadline = System.nanoTime() + 1_000_000_000L;
+        while (written.get() < target && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        out.flush();
+    }
+
+    private static void log(Level level, String source, String format, int argc, Object a, Object b, Object c, Object d) {
+        long seq = claimed.getAndIncrement();
+        while (seq - written.get() >= CAPACITY) {
+            // Buffer full: wait for the writer rather than lose the line
+            LockSupport.parkNanos(10_000);
+        }
+        Entry e = ring[(int) seq & MASK];
+        e.level = level;
+        e.millis = System.currentTimeMillis();
+        e.source = source;
+        e.format = format;
+        e.argc = Math.min(argc, MAX_ARGS);
+        store(e, 0, a);
+        store(e, 1, b);
+        store(e, 2, c);
+        store(e, 3, d);
+        e.published = seq;
+    }
+
+    private static void store(Entry e, int i, Object value) {
+        if (value instanceof TokenBag) {
+            if (e.bags[i] == null) e.bags[i] = new TokenBag();
+            e.bags[i].copyFrom((TokenBag) value);
+            value = e.bags[i];
+        }
+        e.args[i] = value;
+    }
+
+    // Writer thread: format published entries in order, flush when caught up
+    private static void drain() {
+        StringBuilder line = new StringBuilder(256);
+        long next = 0;
+        boolean dirty = false;
+        while (true) {
+            Entry e = ring[(int) next & MASK];
+            if (e.published != next) {
+                if (dirty) {
+                    out.flush();
+                    dirty = false;
+                }
+                LockSupport.parkNanos(IDLE_NANOS);
+                continue;
+            }
+            line.setLength(0);
+            format(e, line);
+            out.append(line);
+            dirty = true;
+
+            for (int i = 0; i < MAX_ARGS; i++) e.args[i] = null;
+            e.source = null;
+            written.lazySet(++next);
+        }
+    }
+
+    private static void format(Entry e, StringBuilder line) {
+        long second = e.millis / 1000;
+        if (second != clockSecond) {
+            clockSecond = second;
+            clock = TIME.format(LocalTime.ofInstant(Instant.ofEpochSecond(second), ZONE));
+        }
+        int ms = (int) (e.millis % 1000);
+        line.append(clock).append('.').append((char) ('0' + ms / 100)).append((char) ('0' + ms / 10 % 10)).append((char) ('0' + ms % 10));
+        line.append(' ').append(e.level);
+        if (e.level.name().length() == 4) line.append(' ');
+        line.append(' ');
+        if (e.source != null) line.append(e.source).append(' ');
+
+        String format = e.format;
+        int arg = 0;
+        int from = 0;
+        int at;
+        while ((at = format.indexOf("{}", from)) >= 0) {
+            line.append(format, from, at);
+            line.append(arg < e.argc ? String.valueOf(e.args[arg]) : "{}");
+            arg++;
+            from = at + 2;
+        }
+        line.append(format, from, format.length()).append('\n');
+    }
+}
@@ -0,0 +1,106 @@
+import java.util.List;
+import java.util.Map;
+
+// Typed content of every ACL message exchanged by the game agents.
+// Colors are ordinals into GameConfig.AVAILABLE_TOKENS, -1 meaning NONE.
+// GameCodec turns these into ACL content (binary, or the legacy text format).
+public sealed interface GameMessage {
+
+    // conversation "init": start, goal, dealt tokens and every player name. The exchange gets one
+    // too, with no position, goal or tokens, so it knows the host and the seats of the session.
+    record Init(int startX, int startY, int goalX, int goalY, TokenBag tokens, List<String> players) implements GameMessage {}
+
+    // conversation "your-turn": the cell the player is expected to enter and its color.
+    // x and y are -1 when the sender did not plan a cell (the player takes the greedy step).
+    record TurnRequest(int color, int x, int y) implements GameMessage {
+
+        public TurnRequest(int color) {
+            this(color, -1, -1);
+        }
+
+        public boolean hasTarget() {
+            return x >= 0 && y >= 0;
+        }
+    }
+
+    // conversation "turn-intent", the reply to "your-turn": what the player does this turn. The
+    // host checks it against its own state; an intent that does not hold counts as a pass.
+    //   MOVE   one step in direction (EAST, WEST, SOUTH or NORTH), paid with a token of the cell color
+    //   TRADE  took token got from the seat partner after a negotiation, paid token paid (-1: betrayed)
+    //   PASS   no move and no trade (blocked, or no bid came)
+    record TurnIntent(int kind, int direction, int partner, int got, int paid) implements GameMessage {
+
+        public static final int MOVE = 0, TRADE = 1, PASS = 2;
+        public static final int EAST = 0, WEST = 1, SOUTH = 2, NORTH = 3;
+
+        public static TurnIntent move(int direction) {
+            return new TurnIntent(MOVE, direction, -1, -1, -1);
+        }
+
+        public static TurnIntent trade(int partner, int got, int paid) {
+            return new TurnIntent(TRADE, -1, partner, got, paid);
+        }
+
+        public static TurnIntent pass() {
+            return new TurnIntent(PASS, -1, -1, -1, -1);
+        }
+
+        // Direction of a unit step, or -1 if (dx, dy) is none
+        public static int direction(int dx, int dy) {
+            if (dy == 0 && (dx == 1 || dx == -1)) return dx > 0 ? EAST : WEST;
+            if (dx == 0 && (dy == 1 || dy == -1)) return dy > 0 ? SOUTH : NORTH;
+            return -1;
+        }
+
+        public int dx() {
+            return direction == EAST ? 1 : direction == WEST ? -1 : 0;
+        }
+
+        public int dy() {
+            return direction == SOUTH ? 1 : direction == NORTH ? -1 : 0;
+        }
+    }
+
+    // conversation "turn-delta", from the host: what changed for the receiver, who keeps a mirror of
+    // the host's state. A step (dx, dy), a token gained and one lost (-1 for none), and its blocked
+    // turns and whether it is out of the game, as the host counts them.
+    record TurnDelta(int dx, int dy, int gained, int lost, int blockedTurns, boolean out) implements GameMessage {}
+
+    // conversation "trade-offer", INFORM to the host: the seat seller agreed to hand a token of the
+    // color to the seat buyer, by its bid or by the exchange's fill. The host only plays a trade
+    // intent that matches one.
+    record TradeOffer(int buyer, int seller, int color) implements GameMessage {}
+
+    // conversation "negotiation-<id>", CFP: "I need this color and offer that one"
+    record Proposal(int need, int offer) implements GameMessage {}
+
+    // conversation "negotiation-<id>", PROPOSE / REFUSE / REJECT_PROPOSAL: token bid (reserved), or -1
+    record ProposalReply(int token) implements GameMessage {}
+
+    // conversation "negotiation-<id>", ACCEPT_PROPOSAL: the proposer's payment, or -1 if it betrayed
+    record Payment(int token) implements GameMessage {}
+
+    // conversation "game-over": the session ended; seat index of the winner, or -1 for a draw
+    record GameOver(int winner) implements GameMessage {}
+
+    // conversation "trade-report", to the placement agent: trades completed per partner since the last report
+    record TradeReport(Map<String, Integer> trades) implements GameMessage {}
+
+    // conversation "placement", from the placement agent: move to this container
+    record Migrate(String container) implements GameMessage {}
+
+    // conversation "exchange", PROPOSE to the exchange: tokens the seat escrows there for sale
+    record Ask(int seat, TokenBag tokens) implements GameMessage {}
+
+    // conversation "exchange", REQUEST to the exchange: the seat needs a color and offers another
+    // (-1: nothing), of which it escrowed paid (-1: none; a betrayal if something was offered)
+    record Order(int seat, int need, int offer, int paid) implements GameMessage {}
+
+    // conversation "exchange", INFORM to a buyer: its order took token got from the seat partner for
+    // paid. partner is the buyer's own seat when its own ask came back, -1 when nothing matched.
+    record Fill(int partner, int got, int paid) implements GameMessage {}
+
+    // conversation "exchange", CONFIRM to a seller: its escrowed token sold went to the seat partner,
+    // who paid token paid (-1: betrayed)
+    record Sale(int partner, int sold, int paid) implements GameMessage {}
+}
@@ -0,0 +1,207 @@
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+// Live counters and latency histograms for a running game, shared by every
+// agent and the GUI in the JVM. Counters are LongAdders and histograms are
+// LatencyHistograms, so the agent and EDT threads record without locking.
+// Published over JMX as jadegame:type=GameMetrics; with
+// -Dgame.metricsDumpSec=N a snapshot is also logged every N seconds.
+public class GameMetrics implements GameMetricsMXBean {
+
+    private static final GameMetrics INSTANCE = new GameMetrics();
+
+    private final LongAdder turns = new LongAdder();
+    private final LatencyHistogram turnLatency = new LatencyHistogram();
+    private final Map<String, LongAdder> sent = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> received = new ConcurrentHashMap<>();
+    private final LongAdder proposals = new LongAdder();
+    private final LongAdder tradesAttempted = new LongAdder();
+    private final LongAdder tradesCompleted = new LongAdder();
+    private final LongAdder betrayals = new LongAdder();
+    private final LongAdder[] blockedTurns = new LongAdder[GameConfig.MAX_BLOCKED_TURNS + 1];
+    private final LatencyHistogram guiUpdate = new LatencyHistogram();
+    private final LatencyHistogram guiPaint = new LatencyHistogram();
+    private final LongAdder mailboxOverCapacity = new LongAdder();
+    private final LongAccumulator mailboxMaxDepth = new LongAccumulator(Math::max, 0);
+
+    private volatile long firstTurnNanos;
+
+    static {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName("jadegame:type=GameMetrics"));
+        } catch (JMException e) {
+            GameLog.warn("Metrics", "JMX registration failed: {}", e);
+        }
+        int seconds = Integer.getInteger("game.metricsDumpSec", 0);
+        if (seconds > 0) {
+            ScheduledExecutorService dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "game-metrics");
+                t.setDaemon(true);
+                return t;
+            });
+            dumper.scheduleAtFixedRate(() -> GameLog.info("Metrics", "{}", INSTANCE.snapshot()), seconds, seconds, TimeUnit.SECONDS);
+        }
+    }
+
+    private GameMetrics() {
+        for (int i = 0; i < blockedTurns.length; i++) blockedTurns[i] = new LongAdder();
+    }
+
+    public static GameMetrics get() {
+        return INSTANCE;
+    }
+
+    // Conversation ids are per negotiation ("negotiation-Player1-7") and per hosted session
+    // ("g12/your-turn"); count them by kind
+    static String conversation(String id) {
+        if (id == null) return "none";
+        String base = ConversationId.baseOf(id);
+        return base.startsWith("negotiation") ? "negotiation" : base;
+    }
+
+    // ---- recording ----
+
+    public void turn(long latencyNanos, int blocked) {
+        if (firstTurnNanos == 0) firstTurnNanos = System.nanoTime() - latencyNanos;
+        turns.increment();
+        turnLatency.record(latencyNanos);
+        blockedTurns[Math.min(Math.max(blocked, 0), GameConfig.MAX_BLOCKED_TURNS)].increment();
+    }
+
+    public void sent(String conversationId, int messages) {
+        sent.computeIfAbsent(conversation(conversationId), k -> new LongAdder()).add(messages);
+    }
+
+    public void received(String conversationId) {
+        received.computeIfAbsent(conversation(conversationId), k -> new LongAdder()).increment();
+    }
+
+    // Calls for proposals (one per peer called) or exchange orders sent
+    public void proposals(int count) {
+        proposals.add(count);
+    }
+
+    // A closed negotiation: completed if a bid was accepted, betrayed if we did not pay
+    public void trade(boolean completed, boolean betrayed) {
+        tradesAttempted.increment();
+        if (completed) tradesCompleted.increment();
+        if (betrayed) betrayals.increment();
+    }
+
+    public void guiUpdate(long nanos) {
+        guiUpdate.record(nanos);
+    }
+
+    public void guiPaint(long nanos) {
+        guiPaint.record(nanos);
+    }
+
+    // A LiteRuntime message queued past its mailbox capacity, with the mailbox depth then
+    public void mailboxOverCapacity(int depth) {
+        mailboxOverCapacity.increment();
+        mailboxMaxDepth.accumulate(depth);
+    }
+
+    // ---- JMX ----
+
+    @Override
+    public long getTurns() { return turns.sum(); }
+
+    @Override
+    public double getTurnsPerSecond() {
+        long start = firstTurnNanos;
+        if (start == 0) return 0;
+        return turns.sum() / ((System.nanoTime() - start) / 1e9);
+    }
+
+    @Override
+    public double getTurnLatencyMeanMicros() { return turnLatency.mean() / 1e3; }
+
+    @Override
+    public long getTurnLatencyP50Micros() { return turnLatency.percentile(0.5) / 1000; }
+
+    @Override
+    public long getTurnLatencyP99Micros() { return turnLatency.percentile(0.99) / 1000; }
+
+    @Override
+    public long getTurnLatencyMaxMicros() { return turnLatency.max() / 1000; }
+
+    @Override
+    public Map<String, Long> getMessagesSent() { return sums(sent); }
+
+    @Override
+    public Map<String, Long> getMessagesReceived() { return sums(received); }
+
+    @Override
+    public long getTradesAttempted() { return tradesAttempted.sum(); }
+
+    @Override
+    public long getTradesCompleted() { return tradesCompleted.sum(); }
+
+    @Override
+    public double getTradeSuccessRate() {
+        long attempted = tradesAttempted.sum();
+        return attempted == 0 ? 0 : (double) tradesCompleted.sum() / attempted;
+    }
+
+    @Override
+    public long getProposals() { return proposals.sum(); }
+
+    @Override
+    public double getProposalsPerTrade() {
+        long completed = tradesCompleted.sum();
+        return completed == 0 ? 0 : (double) proposals.sum() / completed;
+    }
+
+    @Override
+    public double getBetrayalRate() {
+        long completed = tradesCompleted.sum();
+        return completed == 0 ? 0 : (double) betrayals.sum() / completed;
+    }
+
+    @Override
+    public long[] getBlockedTurnCounts() {
+        long[] counts = new long[blockedTurns.length];
+        for (int i = 0; i < counts.length; i++) counts[i] = blockedTurns[i].sum();
+        return counts;
+    }
+
+    @Override
+    public long getGuiUpdateP99Micros() { return guiUpdate.percentile(0.99) / 1000; }
+
+    @Override
+    public long getGuiPaintP99Micros() { return guiPaint.percentile(0.99) / 1000; }
+
+    @Override
+    public long getMailboxOverCapacity() { return mailboxOverCapacity.sum(); }
+
+    @Override
+    public long getMailboxMaxDepth() { return mailboxMaxDepth.get(); }
+
+    @Override
+    public String snapshot() {
+        return String.format("turns %d (%.1f/s), turn latency p50 %d us p99 %d us max %d us, sent %s, received %s, "
+                        + "trades %d/%d (%.0f%%), %.2f proposals per trade, betrayals %.0f%%, blocked %s, gui update p99 %d us, paint p99 %d us, "
+                        + "mailbox over capacity %d (max depth %d)",
+                getTurns(), getTurnsPerSecond(), getTurnLatencyP50Micros(), getTurnLatencyP99Micros(), getTurnLatencyMaxMicros(),
+                getMessagesSent(), getMessagesReceived(), getTradesCompleted(), getTradesAttempted(),
+                100 * getTradeSuccessRate(), getProposalsPerTrade(), 100 * getBetrayalRate(), java.util.Arrays.toString(getBlockedTurnCounts()),
+                getGuiUpdateP99Micros(), getGuiPaintP99Micros(), getMailboxOverCapacity(), getMailboxMaxDepth());
+    }
+
+    private static Map<String, Long> sums(Map<String, LongAdder> counters) {
+        Map<String, Long> sums = new TreeMap<>();
+        counters.forEach((k, v) -> sums.put(k, v.sum()));
+        return sums;
+    }
+}
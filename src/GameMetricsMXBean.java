@@ -0,0 +1,51 @@
+import java.util.Map;
+
+// JMX view of GameMetrics (jadegame:type=GameMetrics in jconsole/VisualVM).
+// Times are in microseconds, rates are per second since the first turn.
+public interface GameMetricsMXBean {
+
+    long getTurns();
+
+    double getTurnsPerSecond();
+
+    double getTurnLatencyMeanMicros();
+
+    long getTurnLatencyP50Micros();
+
+    long getTurnLatencyP99Micros();
+
+    long getTurnLatencyMaxMicros();
+
+    // ACL messages by conversation: init, your-turn, turn-intent, turn-delta, negotiation
+    Map<String, Long> getMessagesSent();
+
+    Map<String, Long> getMessagesReceived();
+
+    long getTradesAttempted();
+
+    long getTradesCompleted();
+
+    double getTradeSuccessRate();
+
+    // Calls for proposals (one per peer called) and exchange orders, and their count per completed trade
+    long getProposals();
+
+    double getProposalsPerTrade();
+
+    double getBetrayalRate();
+
+    // Turns ended with 0, 1, ... MAX_BLOCKED_TURNS blocked turns in a row
+    long[] getBlockedTurnCounts();
+
+    long getGuiUpdateP99Micros();
+
+    long getGuiPaintP99Micros();
+
+    // LiteRuntime messages queued past their mailbox capacity (none are dropped), and the deepest
+    // mailbox among them
+    long getMailboxOverCapacity();
+
+    long getMailboxMaxDepth();
+
+    String snapshot();
+}
@@ -0,0 +1,259 @@
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// Reads a GameJournal directory. Segments are mapped read-only, so any
+// record is one array lookup away. seek() rebuilds the state after any turn
+// from the nearest checkpoint (or the game start) found in the index, then
+// replays only the records after it; a Cursor then steps forward turn by turn.
+// Checkpoints hold positions, tokens and blocked turns; betrayal counts and
+// trust are only rebuilt by replays that start at the beginning of the game.
+public class GameReplay implements AutoCloseable {
+
+    private final MappedByteBuffer[] segments;
+    private final int segmentRecords;
+    private final long records;
+
+    // Index entries, sorted by (game, turn)
+    private final int[] entryGame;
+    private final int[] entryTurn;
+    private final long[] entryRecord;
+
+    public GameReplay(Path dir) throws IOException {
+        MappedByteBuffer idx;
+        try (FileChannel channel = FileChannel.open(GameJournal.indexFile(dir), StandardOpenOption.READ)) {
+            idx = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        idx.order(ByteOrder.LITTLE_ENDIAN);
+        if (idx.getInt(0) != GameJournal.INDEX_MAGIC || idx.getInt(4) != GameJournal.INDEX_VERSION) {
+            throw new IOException("Not a game journal: " + dir);
+        }
+        segmentRecords = idx.getInt(8);
+        int entries = idx.getInt(12);
+        entryGame = new int[entries];
+        entryTurn = new int[entries];
+        entryRecord = new long[entries];
+        for (int i = 0; i < entries; i++) {
+            int at = GameJournal.INDEX_HEADER + i * GameJournal.INDEX_ENTRY;
+            entryGame[i] = idx.getInt(at);
+            entryTurn[i] = idx.getInt(at + 4);
+            entryRecord[i] = idx.getLong(at + 8);
+        }
+
+        List<MappedByteBuffer> maps = new ArrayList<>();
+        for (int n = 0; Files.exists(GameJournal.segmentFile(dir, n)); n++) {
+            try (FileChannel channel = FileChannel.open(GameJournal.segmentFile(dir, n), StandardOpenOption.READ)) {
+                MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                map.order(ByteOrder.LITTLE_ENDIAN);
+                maps.add(map);
+            }
+        }
+        segments = maps.toArray(new MappedByteBuffer[0]);
+        records = segments.length == 0 ? 0 : (long) (segments.length - 1) * segmentRecords + used(segments[segments.length - 1]);
+    }
+
+    // Records written to a segment: they are contiguous, followed by zeros
+    private int used(MappedByteBuffer segment) {
+        int lo = 0, hi = segment.capacity() / GameJournal.RECORD_SIZE;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (segment.get(mid * GameJournal.RECORD_SIZE) != 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    public long records() { return records; }
+
+    public int games() {
+        return entryGame.length == 0 ? 0 : entryGame[entryGame.length - 1] + 1;
+    }
+
+    // Raw record fields, see GameJournal for their meaning per type
+    public int type(long r) { return at(r).get(offset(r)); }
+    public int c1(long r) { return at(r).get(offset(r) + 1) & 0xFF; }
+    public int c2(long r) {
+        int c2 = at(r).get(offset(r) + 2) & 0xFF;
+        return c2 == GameJournal.NO_COLOR ? -1 : c2;
+    }
+    public int i1(long r) { return at(r).getInt(offset(r) + 4); }
+    public int i2(long r) { return at(r).getInt(offset(r) + 8); }
+    public int i3(long r) { return at(r).getInt(offset(r) + 12); }
+
+    private MappedByteBuffer at(long r) {
+        return segments[(int) (r / segmentRecords)];
+    }
+
+    private int offset(long r) {
+        return (int) (r % segmentRecords) * GameJournal.RECORD_SIZE;
+    }
+
+    /**
+     * State of a game after the given number of turns (or at its end, if it
+     * was shorter), rebuilt from the last checkpoint at or before that turn.
+     */
+    public Cursor seek(int game, int turn) {
+        int start = lastEntry(game, 0);
+        int from = lastEntry(game, turn);
+        if (start < 0 || entryGame[start] != game || entryTurn[start] != 0) {
+            throw new IllegalArgumentException("No game " + game + " in journal");
+        }
+        Cursor cursor = new Cursor(entryRecord[start]);
+        if (from != start) cursor.restore(entryRecord[from]);
+        while (cursor.turn < turn && cursor.next()) {
+            // replay up to the turn
+        }
+        return cursor;
+    }
+
+    // Last index entry at or before (game, turn), or -1
+    private int lastEntry(int game, int turn) {
+        int lo = 0, hi = entryGame.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (entryGame[mid] < game || entryGame[mid] == game && entryTurn[mid] <= turn) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo - 1;
+    }
+
+    @Override
+    public void close() {
+        // Mappings are released with the buffers
+    }
+
+    // A game being replayed; next() applies one more turn
+    public final class Cursor {
+
+        private final Board board;
+        private final List<PlayerState> players = new ArrayList<>();
+        private long position;
+        private int turn = 0;
+        private int winner = -1;
+        private boolean ended = false;
+
+        // Load the game header at record r
+        private Cursor(long r) {
+            int width = i1(r), height = i2(r), count = i3(r);
+            if (c1(r) != GameConfig.NUM_COLORS) {
+                throw new IllegalStateException("Journal has " + c1(r) + " colors, run with -Dgame.colors=" + c1(r));
+            }
+            board = new Board(width, height);
+            r++;
+            int cells = width * height;
+            for (int i = 0; i < cells; r++) {
+                int[] words = {i1(r), i2(r), i3(r)};
+                for (int w = 0; w < 3; w++) {
+                    for (int k = 0; k < 4 && i < cells; k++, i++) {
+                        board.setColor(i % width, i / width, (words[w] >>> (8 * k)) & 0xFF);
+                    }
+                }
+            }
+            for (int p = 0; p < count; p++) {
+                int startCell = i2(r), goalCell = i3(r);
+                r++;
+                TokenBag tokens = new TokenBag();
+                for (; r < records && type(r) == GameJournal.TOKENS; r++) tokens.add(c1(r), i2(r));
+                PlayerState player = new PlayerState("Player" + (p + 1), startCell % width, startCell / width,
+                        goalCell % width, goalCell / width, tokens);
+                player.setReputation(new Reputation(GameConfig.REPUTATION_HALF_LIFE_TURNS, () -> turn));
+                players.add(player);
+            }
+            position = r;
+        }
+
+        // Jump to the checkpoint at record r
+        private void restore(long r) {
+            turn = i1(r);
+            r++;
+            while (r < records && type(r) == GameJournal.STATE) {
+                PlayerState p = players.get(i1(r));
+                int cell = i2(r);
+                p.setX(cell % board.getWidth());
+                p.setY(cell / board.getWidth());
+                p.setBlockedTurns(i3(r));
+                p.setDisqualified(c1(r) != 0);
+                p.getTokens().clear();
+                for (r++; r < records && type(r) == GameJournal.TOKENS; r++) p.getTokens().add(c1(r), i2(r));
+            }
+            position = r;
+        }
+
+        /**
+         * Apply the next turn's records. Returns false, without changing
+         * anything, once the game has no more turns.
+         */
+        public boolean next() {
+            skipCheckpoint();
+            if (ended || position >= records || type(position) != GameJournal.TURN) return false;
+            turn = i1(position++);
+            while (position < records) {
+                int type = type(position);
+                if (type == GameJournal.TURN || type == GameJournal.GAME || type == GameJournal.CHECKPOINT) break;
+                apply(position++);
+                if (type == GameJournal.END) break;
+            }
+            return true;
+        }
+
+        private void skipCheckpoint() {
+            if (position < records && type(position) == GameJournal.CHECKPOINT) {
+                position++;
+                while (position < records && (type(position) == GameJournal.STATE || type(position) == GameJournal.TOKENS)) position++;
+            }
+        }
+
+        private void apply(long r) {
+            switch (type(r)) {
+                case GameJournal.MOVE: {
+                    PlayerState p = players.get(i2(r));
+                    p.setX(i3(r) % board.getWidth());
+                    p.setY(i3(r) / board.getWidth());
+                    p.removeToken(c1(r));
+                    p.resetBlockedTurns();
+                    break;
+                }
+                case GameJournal.BLOCK:
+                    players.get(i2(r)).setBlockedTurns(i3(r));
+                    break;
+                case GameJournal.ACCEPT: {
+                    PlayerState p = players.get(i2(r));
+                    PlayerState partner = players.get(i3(r));
+                    partner.removeToken(c1(r));
+                    p.addToken(c1(r));
+                    if (c2(r) >= 0 && p.removeToken(c2(r))) partner.addToken(c2(r));
+                    break;
+                }
+                case GameJournal.BETRAYAL: {
+                    PlayerState betrayer = players.get(i2(r));
+                    PlayerState victim = players.get(i3(r));
+                    betrayer.recordBetrayal(victim.getName());
+                    victim.recordBetrayedBy(betrayer.getName());
+                    break;
+                }
+                case GameJournal.DISQUALIFY:
+                    players.get(i2(r)).setDisqualified(true);
+                    break;
+                case GameJournal.END:
+                    winner = i2(r);
+                    ended = true;
+                    break;
+                default:
+                    // TURN, PROPOSAL and REJECT do not change the state
+                    break;
+            }
+        }
+
+        public Board getBoard() { return board; }
+        public List<PlayerState> getPlayers() { return players; }
+        public int getTurn() { return turn; }
+        public boolean isEnded() { return ended; }
+        public int getWinner() { return winner; }
+    }
+}
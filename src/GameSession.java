@@ -0,0 +1,372 @@
+import jade.core.AID;
+import jade.lang.acl.ACLMessage;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// One game played over ACL: the engine holds the board and the rules, each
+// seat is played by a PlayerAgent. The session only keeps its own state and
+// sends through the agent that hosts it, so one agent can run one session
+// (MainAgent, with the GUI) or thousands (GameHost).
+//
+// The session is the only authority on the game state. A player answers its
+// turn with an intent (move, trade or pass), which is checked against the
+// board and the inventories here, and every change is sent back as a delta
+// to the players it concerns; their copies only ever change by those deltas.
+// A trade takes a token from another seat, so it is only played if that seat
+// agreed to it: a bidder registers its bid here as a trade offer, and the
+// exchange registers each fill.
+//
+// Conversations are scoped by the session id: "<id>/your-turn",
+// "<id>/turn-intent", "<id>/negotiation-..." and so on, so a player agent can
+// sit in many sessions at once (see ConversationId). The unnamed session
+// ("") uses the plain ids of the single-game protocol.
+public class GameSession {
+
+    private final String id;
+    private final GameEngine engine;
+    // Agent playing each seat, in engine player order
+    private final List<String> agents;
+
+    // -Dgame.simultaneous: every player still in asked at once, the answers resolved as one round
+    private final boolean simultaneous = GameConfig.SIMULTANEOUS_TURNS;
+
+    private int turnCount = 0;
+    private int currentPlayerIndex = -1;
+    private int round = 0;
+    private String awaitedReply;
+    private long deadline;
+    private long turnStart;
+    // Per seat, for the round in play: asked and not answered yet, the intent received, the planned
+    // cell and its color, and whether it moved
+    private final boolean[] awaiting;
+    private int awaitingCount;
+    private final GameMessage.TurnIntent[] intents;
+    private final int[] nextCells;
+    private final int[] nextColors;
+    private final boolean[] moved;
+    // Per seat, the trade offers registered for it as buyer while its intent is awaited: bit
+    // seller * NUM_COLORS + color. Dropped once its intent is played.
+    private final BitSet[] offers;
+    // Seats asked this round, in the order their intents are resolved
+    private final int[] order;
+    private int orderCount;
+    private boolean over;
+    private int winner = -1;
+
+    public GameSession(String id, long seed, List<String> agents) {
+        this(id, seed, agents, null);
+    }
+
+    // Only setup() runs in the engine; turns are journaled here as they are played
+    public GameSession(String id, long seed, List<String> agents, GameJournal journal) {
+        this(id, newEngine(seed, agents.size(), journal), agents);
+    }
+
+    // A game set up elsewhere (any board size or tokens), one agent per player of the engine
+    public GameSession(String id, GameEngine engine, List<String> agents) {
+        this.id = id;
+        this.agents = agents;
+        this.engine = engine;
+        int n = agents.size();
+        awaiting = new boolean[n];
+        intents = new GameMessage.TurnIntent[n];
+        nextCells = new int[n];
+        nextColors = new int[n];
+        moved = new boolean[n];
+        order = new int[n];
+        offers = new BitSet[n];
+        for (int i = 0; i < n; i++) offers[i] = new BitSet();
+    }
+
+    private static GameEngine newEngine(long seed, int players, GameJournal journal) {
+        GameEngine engine = new GameEngine(new SplittableRandom(seed));
+        engine.setJournal(journal);
+        engine.setup(players);
+        return engine;
+    }
+
+    // ---- conversation ids ----
+
+    public String conversation(String base) {
+        return ConversationId.of(id, base);
+    }
+
+    // ---- protocol ----
+
+    // Deal every seat its start, goal and tokens, with the list of all players. The exchange, if
+    // any, is told first, so it knows where to register its fills before any ask comes in.
+    public void start(AgentPort host) {
+        List<PlayerState> players = engine.getPlayers();
+        if (GameConfig.EXCHANGE_AGENT != null) {
+            ACLMessage notice = new ACLMessage(ACLMessage.INFORM);
+            notice.addReceiver(new AID(GameConfig.EXCHANGE_AGENT, AID.ISLOCALNAME));
+            notice.setConversationId(conversation("init"));
+            GameCodec.write(notice, new GameMessage.Init(-1, -1, -1, -1, new TokenBag(), agents));
+            host.send(notice);
+            GameMetrics.get().sent("init", 1);
+        }
+        for (int i = 0; i < players.size(); i++) {
+            PlayerState p = players.get(i);
+            ACLMessage setupMsg = new ACLMessage(ACLMessage.INFORM);
+            setupMsg.addReceiver(new AID(agents.get(i), AID.ISLOCALNAME));
+            setupMsg.setConversationId(conversation("init"));
+            GameCodec.write(setupMsg, new GameMessage.Init(p.getX(), p.getY(), p.getGoalX(), p.getGoalY(), p.getTokens(), agents));
+            host.send(setupMsg);
+        }
+        GameMetrics.get().sent("init", players.size());
+    }
+
+    // Ask the next player still in the game for its move, or in simultaneous mode every one of
+    // them; disqualified players sit out, as in the engine
+    public void sendTurn(AgentPort host) {
+        List<PlayerState> players = engine.getPlayers();
+        round++;
+        orderCount = 0;
+        if (simultaneous) {
+            // Who goes first when intents collide rotates with the rounds
+            for (int k = 0; k < players.size(); k++) {
+                int seat = (round + k) % players.size();
+                if (!players.get(seat).isDisqualified()) order[orderCount++] = seat;
+            }
+        } else {
+            do {
+                currentPlayerIndex = (currentPlayerIndex + 1) % players.size();
+            } while (players.get(currentPlayerIndex).isDisqualified());
+            order[orderCount++] = currentPlayerIndex;
+        }
+
+        turnStart = System.nanoTime();
+        awaitedReply = "turn-" + (turnCount + 1);
+        awaitingCount = orderCount;
+        Board board = engine.getBoard();
+        GameJournal journal = engine.getJournal();
+        for (int k = 0; k < orderCount; k++) {
+            int seat = order[k];
+            turnCount++;
+            GameLog.debug(host.getLocalName(), "=== Turn {}: {}'s move ===", turnCount, agents.get(seat));
+
+            // Next cell on the player's planned path; the request names it, so the player moves there
+            nextCells[seat] = engine.nextStep(seat);
+            nextColors[seat] = board.colorAt(nextCells[seat]);
+            if (journal != null) journal.turn(turnCount, seat, nextCells[seat], nextColors[seat]);
+            awaiting[seat] = true;
+            intents[seat] = null;
+
+            ACLMessage turnMsg = new ACLMessage(ACLMessage.REQUEST);
+            turnMsg.addReceiver(new AID(agents.get(seat), AID.ISLOCALNAME));
+            turnMsg.setConversationId(conversation("your-turn"));
+            turnMsg.setReplyWith(awaitedReply);
+            GameCodec.write(turnMsg, new GameMessage.TurnRequest(nextColors[seat], nextCells[seat] % board.getWidth(), nextCells[seat] / board.getWidth()));
+            host.send(turnMsg);
+        }
+        GameMetrics.get().sent("your-turn", orderCount);
+
+        deadline = System.currentTimeMillis() + GameConfig.TURN_TIMEOUT_MS;
+    }
+
+    // Take a turn intent if it answers a request of this round; false for a late reply to a timed-out
+    // turn (legacy players that do not set in-reply-to are accepted too). The round is played once the
+    // last intent is in, and isAwaiting() turns false.
+    public boolean accept(AgentPort host, ACLMessage reply) {
+        GameMetrics.get().received("turn-intent");
+        String inReplyTo = reply.getInReplyTo();
+        int seat = agents.indexOf(reply.getSender().getLocalName());
+        if (over || seat < 0 || !awaiting[seat] || (inReplyTo != null && !inReplyTo.equals(awaitedReply))) {
+            return false;
+        }
+        awaiting[seat] = false;
+        awaitingCount--;
+        // Anything but a turn intent is played as a pass, as the session must not fail on one player
+        GameMessage content = content(reply);
+        intents[seat] = content instanceof GameMessage.TurnIntent intent ? intent : GameMessage.TurnIntent.pass();
+        if (awaitingCount == 0) playRound(host);
+        return true;
+    }
+
+    // Register a trade offer for a buyer whose intent is awaited; false if it does not come from the
+    // seller itself or the exchange, or comes too late (the buyer's round was played)
+    public boolean offer(ACLMessage msg) {
+        GameMetrics.get().received("trade-offer");
+        if (!(content(msg) instanceof GameMessage.TradeOffer offer)) return false;
+        int buyer = offer.buyer(), seller = offer.seller(), n = agents.size();
+        if (over || buyer < 0 || buyer >= n || seller < 0 || seller >= n || buyer == seller || offer.color() < 0 || !awaiting[buyer]) {
+            return false;
+        }
+        String sender = msg.getSender().getLocalName();
+        if (!sender.equals(agents.get(seller)) && !sender.equals(GameConfig.EXCHANGE_AGENT)) return false;
+        offers[buyer].set(seller * GameConfig.NUM_COLORS + offer.color());
+        return true;
+    }
+
+    // The message content, or null if it cannot be decoded
+    private GameMessage content(ACLMessage msg) {
+        try {
+            return GameCodec.read(msg);
+        } catch (RuntimeException e) {
+            GameLog.warn(msg.getSender().getLocalName(), "sent an undecodable message to session '{}': {}", id, e);
+            return null;
+        }
+    }
+
+    // Timeout policy: no answer in time counts as a blocked turn; the intents that came in are played
+    public void timeout(AgentPort host) {
+        List<PlayerState> players = engine.getPlayers();
+        GameJournal journal = engine.getJournal();
+        for (int k = 0; k < orderCount; k++) {
+            int seat = order[k];
+            if (!awaiting[seat]) continue;
+            awaiting[seat] = false;
+            PlayerState pdata = players.get(seat);
+            pdata.incrementBlockedTurns();
+            GameLog.warn(host.getLocalName(), "{} did not answer within {} ms ({})", agents.get(seat), GameConfig.TURN_TIMEOUT_MS, pdata.getBlockedTurns());
+            if (journal != null) journal.block(seat, pdata.getBlockedTurns(), nextColors[seat]);
+            if (pdata.getBlockedTurns() >= GameConfig.MAX_BLOCKED_TURNS) disqualify(seat);
+            sendDelta(host, seat, 0, 0, -1, -1);
+        }
+        awaitingCount = 0;
+        playRound(host);
+    }
+
+    // The engine's turn for every intent of the round: a move resets the blocked count, anything
+    // else adds to it, and a player still blocked at MAX_BLOCKED_TURNS without a trade is out.
+    // Conflicts are settled in seat order from the round's first seat: moves go first, and a cell
+    // entered this round is taken; then trades, against the tokens left after the moves, so a
+    // token sold twice goes to the first buyer. An intent that does not hold counts as a pass.
+    private void playRound(AgentPort host) {
+        List<PlayerState> players = engine.getPlayers();
+        Board board = engine.getBoard();
+        GameJournal journal = engine.getJournal();
+
+        for (int k = 0; k < orderCount; k++) {
+            int seat = order[k];
+            GameMessage.TurnIntent intent = intents[seat];
+            moved[seat] = false;
+            if (intent == null || intent.kind() != GameMessage.TurnIntent.MOVE) continue;
+            PlayerState pdata = players.get(seat);
+            int x = pdata.getX() + intent.dx(), y = pdata.getY() + intent.dy();
+            int cell = board.contains(x, y) ? board.index(x, y) : -1;
+            boolean free = cell >= 0;
+            for (int e = 0; e < k && free; e++) free = !moved[order[e]] || nextCells[order[e]] != cell;
+            // Any other direction would "move" onto the player's own cell
+            boolean step = intent.direction() >= GameMessage.TurnIntent.EAST && intent.direction() <= GameMessage.TurnIntent.NORTH;
+            if (step && free && pdata.tryMove(x, y, board.colorAt(cell))) {
+                engine.getPositions().place(seat, cell);
+                engine.getFeasibility().moved(seat, board.colorAt(cell));
+                if (journal != null) journal.move(seat, cell, board.colorAt(cell));
+                sendDelta(host, seat, intent.dx(), intent.dy(), -1, board.colorAt(cell));
+                // From here on nextCells holds where a moved seat went
+                nextCells[seat] = cell;
+                moved[seat] = true;
+            } else {
+                GameLog.warn(host.getLocalName(), "{} cannot move to ({},{}), counted as a pass", agents.get(seat), x, y);
+                intents[seat] = GameMessage.TurnIntent.pass();
+            }
+        }
+
+        for (int k = 0; k < orderCount; k++) {
+            int seat = order[k];
+            GameMessage.TurnIntent intent = intents[seat];
+            // null: timed out, already counted
+            if (intent == null || moved[seat]) continue;
+            PlayerState pdata = players.get(seat);
+            boolean traded = intent.kind() == GameMessage.TurnIntent.TRADE && trade(host, seat, intent);
+            pdata.incrementBlockedTurns();
+            if (journal != null) journal.block(seat, pdata.getBlockedTurns(), nextColors[seat]);
+            if (!traded && pdata.getBlockedTurns() >= GameConfig.MAX_BLOCKED_TURNS) {
+                disqualify(seat);
+                if (id.isEmpty()) GameLog.info(agents.get(seat), "is out, blocked {} times", pdata.getBlockedTurns());
+            }
+            sendDelta(host, seat, 0, 0, traded ? intent.got() : -1, traded ? intent.paid() : -1);
+        }
+        for (int k = 0; k < orderCount; k++) offers[order[k]].clear();
+        endRound();
+    }
+
+    // Hand the token over if the partner offered it, still holds it, and the payment, if any, is
+    // ours to give
+    private boolean trade(AgentPort host, int seat, GameMessage.TurnIntent intent) {
+        List<PlayerState> players = engine.getPlayers();
+        PlayerState pdata = players.get(seat);
+        int partner = intent.partner();
+        PlayerState other = partner >= 0 && partner < players.size() && partner != seat
+                && intent.got() >= 0 && offers[seat].get(partner * GameConfig.NUM_COLORS + intent.got()) ? players.get(partner) : null;
+        if (other == null || !other.hasToken(intent.got()) || (intent.paid() >= 0 && !pdata.hasToken(intent.paid()))) {
+            GameLog.warn(host.getLocalName(), "{} cannot take '{}' from seat {}, counted as a pass",
+                    agents.get(seat), GameConfig.colorName(intent.got()), partner);
+            return false;
+        }
+        other.removeToken(intent.got());
+        pdata.addToken(intent.got());
+        if (intent.paid() >= 0) {
+            pdata.removeToken(intent.paid());
+            other.addToken(intent.paid());
+        }
+        sendDelta(host, partner, 0, 0, intent.paid(), intent.got());
+        return true;
+    }
+
+    private void disqualify(int seat) {
+        engine.getPlayers().get(seat).setDisqualified(true);
+        GameJournal journal = engine.getJournal();
+        if (journal != null) journal.disqualify(seat);
+    }
+
+    // A change to one seat, with its blocked count and status as they stand here
+    private void sendDelta(AgentPort host, int seat, int dx, int dy, int gained, int lost) {
+        PlayerState p = engine.getPlayers().get(seat);
+        ACLMessage delta = new ACLMessage(ACLMessage.INFORM);
+        delta.addReceiver(new AID(agents.get(seat), AID.ISLOCALNAME));
+        delta.setConversationId(conversation("turn-delta"));
+        GameCodec.write(delta, new GameMessage.TurnDelta(dx, dy, gained, lost, p.getBlockedTurns(), p.isDisqualified()));
+        host.send(delta);
+        GameMetrics.get().sent("turn-delta", 1);
+    }
+
+    // The game ends on a goal (the first seat of the round there wins), when everybody is blocked
+    // out, when nobody can reach a goal any more, or at MAX_GAME_TURNS as in the engine
+    private void endRound() {
+        // From the request to the applied intents (or the timeout), pacing excluded
+        long latency = System.nanoTime() - turnStart;
+        List<PlayerState> players = engine.getPlayers();
+        for (int k = 0; k < orderCount; k++) {
+            PlayerState pdata = players.get(order[k]);
+            GameMetrics.get().turn(latency, pdata.getBlockedTurns());
+            if (winner < 0 && pdata.isAtGoal()) winner = order[k];
+        }
+        awaitedReply = null;
+
+        if (winner >= 0 || engine.allPlayersBlocked() || turnCount >= GameConfig.MAX_GAME_TURNS
+                || GameConfig.EARLY_DRAW && !engine.getFeasibility().anyCanFinish()) {
+            over = true;
+            GameJournal journal = engine.getJournal();
+            if (journal != null) journal.end(winner);
+        }
+    }
+
+    // Tell every seat the game is over, so the players drop their state for it
+    public void finish(AgentPort host) {
+        ACLMessage end = new ACLMessage(ACLMessage.INFORM);
+        for (String agent : agents) end.addReceiver(new AID(agent, AID.ISLOCALNAME));
+        // The exchange drops the session's order book
+        if (GameConfig.EXCHANGE_AGENT != null) end.addReceiver(new AID(GameConfig.EXCHANGE_AGENT, AID.ISLOCALNAME));
+        end.setConversationId(conversation("game-over"));
+        GameCodec.write(end, new GameMessage.GameOver(winner));
+        host.send(end);
+        GameMetrics.get().sent("game-over", agents.size() + (GameConfig.EXCHANGE_AGENT != null ? 1 : 0));
+    }
+
+    public String getId() { return id; }
+    public GameEngine getEngine() { return engine; }
+    public List<String> getAgents() { return agents; }
+    public int getTurn() { return turnCount; }
+    // Player asked last in sequential mode
+    public String getCurrentPlayer() { return currentPlayerIndex < 0 ? null : agents.get(currentPlayerIndex); }
+    // Wall-clock deadline (ms) of the intents awaited, if any
+    public long getDeadline() { return deadline; }
+    public boolean isAwaiting() { return awaitedReply != null; }
+    public boolean isOver() { return over; }
+    // Seat index of the player who reached its goal, -1 for a draw
+    public int getWinner() { return winner; }
+}
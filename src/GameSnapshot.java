@@ -0,0 +1,67 @@
+import java.util.List;
+
+// Immutable picture of the game after a turn, handed from the simulation to
+// the GUI through a SnapshotExchange. Trails are persistent linked lists:
+// a new snapshot shares every earlier node, so capturing is O(players) and a
+// renderer that skipped snapshots can still walk back over the moves it missed.
+public final class GameSnapshot {
+
+    // One visited cell; prev is the cell visited before it (null at the start)
+    public static final class Trail {
+        public final int x, y;
+        public final Trail prev;
+
+        Trail(int x, int y, Trail prev) {
+            this.x = x;
+            this.y = y;
+            this.prev = prev;
+        }
+    }
+
+    private final int turn;
+    private final String[] names;
+    private final int[] goalX, goalY;
+    private final Trail[] heads;
+
+    private GameSnapshot(int turn, String[] names, int[] goalX, int[] goalY, Trail[] heads) {
+        this.turn = turn;
+        this.names = names;
+        this.goalX = goalX;
+        this.goalY = goalY;
+        this.heads = heads;
+    }
+
+    // Snapshot of players after the given turn, extending the trails of previous (may be null)
+    public static GameSnapshot capture(int turn, List<PlayerState> players, GameSnapshot previous) {
+        int n = players.size();
+        boolean reuse = previous != null && previous.names.length == n;
+        String[] names = reuse ? previous.names : new String[n];
+        int[] goalX = reuse ? previous.goalX : new int[n];
+        int[] goalY = reuse ? previous.goalY : new int[n];
+        Trail[] heads = new Trail[n];
+
+        for (int i = 0; i < n; i++) {
+            PlayerState p = players.get(i);
+            if (!reuse) {
+                names[i] = p.getName();
+                goalX[i] = p.getGoalX();
+                goalY[i] = p.getGoalY();
+            }
+            Trail head = reuse ? previous.heads[i] : null;
+            if (head == null || head.x != p.getX() || head.y != p.getY()) {
+                head = new Trail(p.getX(), p.getY(), head);
+            }
+            heads[i] = head;
+        }
+        return new GameSnapshot(turn, names, goalX, goalY, heads);
+    }
+
+    public int getTurn() { return turn; }
+    public int size() { return names.length; }
+    public String name(int i) { return names[i]; }
+    public int x(int i) { return heads[i].x; }
+    public int y(int i) { return heads[i].y; }
+    public int goalX(int i) { return goalX[i]; }
+    public int goalY(int i) { return goalY[i]; }
+    public Trail trail(int i) { return heads[i]; }
+}
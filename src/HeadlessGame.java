@@ -0,0 +1,44 @@
+import java.io.IOException;
+import java.util.SplittableRandom;
+
+// Runs games in-process on the GameEngine: no JADE container, no GUI, no delay.
+// With -Dgame.journal=<dir> every game is recorded for ReplayGame.
+// Usage: java -cp src HeadlessGame [games]
+public class HeadlessGame {
+
+    public static void main(String[] args) throws IOException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+
+        SplittableRandom rand = new SplittableRandom();
+        int wins = 0, draws = 0;
+        long turns = 0, trades = 0, betrayals = 0;
+
+        GameJournal journal = GameJournal.shared();
+
+        long start = System.nanoTime();
+        for (int g = 0; g < games; g++) {
+            GameEngine engine = new GameEngine(rand);
+            engine.setJournal(journal);
+            engine.setup(GameConfig.NUM_PLAYERS);
+            engine.run();
+
+            if (engine.getWinner() != null) wins++;
+            else draws++;
+            turns += engine.getTurnCount();
+            trades += engine.getTrades();
+            betrayals += engine.getBetrayals();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println(String.format("Played %d games in %.1f ms (%.2f us/game)",
+                games, elapsed / 1e6, elapsed / 1e3 / games));
+        System.out.println(String.format("Wins: %d, draws: %d, avg turns: %.2f, trades: %d, betrayals: %d",
+                wins, draws, (double) turns / games, trades, betrayals));
+        if (GameConfig.STRATEGY.equals("search")) System.out.println(SearchStrategy.report());
+        if (journal != null) {
+            System.out.println(String.format("Journal: %d records (%.1f M records/s)",
+                    journal.size(), journal.size() * 1e3 / elapsed));
+            journal.close();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+// The original rules of thumb: offer the most common token, trade with the
+// peer betrayed least often, betray with GameConfig.BETRAYAL_PROBABILITY.
+public class HeuristicStrategy implements PlayerStrategy {
+
+    private final RandomGenerator rand;
+
+    public HeuristicStrategy(RandomGenerator rand) {
+        this.rand = rand;
+    }
+
+    @Override
+    public int offerColor(PlayerState self, int need, List<String> peers) {
+        return self.selectOfferColor();
+    }
+
+    @Override
+    public String choosePartner(PlayerState self, List<String> candidates) {
+        return self.selectPlayerToTrade(candidates);
+    }
+
+    @Override
+    public boolean paysHonestly(PlayerState self, String partner, int offer) {
+        return GameEngine.isHonest(rand);
+    }
+}
@@ -0,0 +1,161 @@
+import jade.lang.acl.ACLMessage;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Runs many game sessions at once in one agent, without GUI or pacing. Each
+// session is a GameSession played by a rotating set of seats from a shared
+// pool of players, which are reused across sessions. When a session
+// ends the players are told, its state is released and the next game is
+// started in its place; the JVM keeps running.
+//
+// Arguments: host index, host count, games in total (over all hosts),
+// sessions open at once per host, player pool size, master seed. Game i of
+// the run is played by host (i % hosts) and seeded as in Tournament, so a
+// hosted game can be replayed live with MainAgent or in batch.
+//
+// Runs as a GameHost on JADE or as a lightweight agent on LiteRuntime; one
+// host is one agent, so the launchers start several and spread the sessions
+// over them to scale with cores.
+public class HostLogic implements AgentLogic {
+
+    private final int hostIndex;
+    private final int hosts;
+    private final long games;
+    private final int concurrent;
+    private final int poolSize;
+    private final long masterSeed;
+
+    // Sessions in play by id, and the turns requested; every turn gets the same
+    // timeout, so deadlines come in request order and a FIFO queue keeps them sorted
+    private final Map<String, GameSession> sessions = new HashMap<>();
+    private final ArrayDeque<Timeout> timeouts = new ArrayDeque<>();
+
+    private long nextGame;
+    private long finished;
+    private long draws;
+    private long turns;
+    private long startMillis;
+
+    // A session's deadline when its turn was requested; stale once the session moved on
+    private record Timeout(long deadline, GameSession session, int turn) {}
+
+    private AgentPort port;
+
+    // Arguments as listed above, as strings (JADE agent arguments) or numbers
+    public HostLogic(Object[] args) {
+        hostIndex = Integer.parseInt(args[0].toString());
+        hosts = Integer.parseInt(args[1].toString());
+        games = Long.parseLong(args[2].toString());
+        concurrent = Integer.parseInt(args[3].toString());
+        poolSize = Integer.parseInt(args[4].toString());
+        masterSeed = Long.parseLong(args[5].toString());
+        if (poolSize < GameConfig.NUM_PLAYERS) {
+            throw new IllegalArgumentException("A pool of " + poolSize + " players cannot seat " + GameConfig.NUM_PLAYERS);
+        }
+    }
+
+    @Override
+    public void start(AgentPort port) {
+        this.port = port;
+        GameLog.info(port.getLocalName(), "hosting up to {} sessions at once", concurrent);
+        startMillis = System.currentTimeMillis();
+        nextGame = hostIndex;
+        for (int i = 0; i < concurrent && startNext(); i++) {
+            // keep opening sessions
+        }
+    }
+
+    // Open the next game of this host, if any is left; false when none is
+    private boolean startNext() {
+        if (nextGame >= games) return false;
+        long game = nextGame;
+        nextGame += hosts;
+
+        // Consecutive pool members from a rotating offset, so sessions spread over all players
+        List<String> seats = new ArrayList<>(GameConfig.NUM_PLAYERS);
+        int first = (int) ((game * GameConfig.NUM_PLAYERS) % poolSize);
+        for (int i = 0; i < GameConfig.NUM_PLAYERS; i++) {
+            seats.add("Player" + ((first + i) % poolSize + 1));
+        }
+
+        GameSession session = new GameSession("g" + game, Tournament.seedFor(masterSeed, game), seats);
+        sessions.put(session.getId(), session);
+        session.start(port);
+        nextTurn(session);
+        return true;
+    }
+
+    private void nextTurn(GameSession session) {
+        session.sendTurn(port);
+        timeouts.add(new Timeout(session.getDeadline(), session, session.getTurn()));
+    }
+
+    // After a result or a timeout: ask for the next turn, or close the session and open another
+    private void afterTurn(GameSession session) {
+        if (!session.isOver()) {
+            nextTurn(session);
+            return;
+        }
+        session.finish(port);
+        sessions.remove(session.getId());
+        finished++;
+        turns += session.getTurn();
+        if (session.getWinner() < 0) draws++;
+        GameLog.debug(port.getLocalName(), "session {} over after {} turns, winner {}", session.getId(), session.getTurn(),
+                session.getWinner() < 0 ? "none" : session.getAgents().get(session.getWinner()));
+
+        if (!startNext() && sessions.isEmpty()) {
+            double seconds = Math.max(1, System.currentTimeMillis() - startMillis) / 1000.0;
+            GameLog.info(port.getLocalName(), "played {} games ({} draws), {} games/s, {} turns/s",
+                    finished, draws, Math.round(finished / seconds), Math.round(turns / seconds));
+            port.doDelete();
+        }
+    }
+
+    // Route a turn intent or a trade offer to its session by the conversation prefix
+    @Override
+    public void handle(ACLMessage msg) {
+        // Only those are expected; on JADE, a player that moved away mid-turn can come back as a FAILURE
+        String base = ConversationId.baseOf(msg.getConversationId());
+        if (!("turn-intent".equals(base) || "trade-offer".equals(base)) || msg.getPerformative() != ACLMessage.INFORM) {
+            GameLog.warn(port.getLocalName(), "dropped unexpected {} message from {}", ACLMessage.getPerformative(msg.getPerformative()), msg.getSender().getLocalName());
+            return;
+        }
+        GameSession session = sessions.get(ConversationId.sessionOf(msg.getConversationId()));
+        if ("trade-offer".equals(base)) {
+            // A bid that came after its caller's round was played, or from a session already over
+            if (session == null || !session.offer(msg)) {
+                GameLog.debug(port.getLocalName(), "dropped stale trade offer from {}", msg.getSender().getLocalName());
+            }
+            return;
+        }
+        if (session != null && session.isAwaiting() && session.accept(port, msg)) {
+            // In simultaneous mode the round is played once every intent is in
+            if (!session.isAwaiting()) afterTurn(session);
+        } else {
+            GameLog.warn(port.getLocalName(), "dropped stale turn intent from {}", msg.getSender().getLocalName());
+        }
+    }
+
+    // Time out the turns nobody answered
+    @Override
+    public long expire(long now) {
+        Timeout next;
+        while ((next = timeouts.peek()) != null) {
+            GameSession session = next.session();
+            if (session.isOver() || !session.isAwaiting() || session.getTurn() != next.turn()) {
+                timeouts.poll();
+                continue;
+            }
+            if (next.deadline() > now) return next.deadline();
+            timeouts.poll();
+            session.timeout(port);
+            afterTurn(session);
+        }
+        return Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,92 @@
+import java.util.Arrays;
+
+// What a player believes the other players of a game hold: per seat and
+// color, the chance that the seat holds at least one token of it. It starts
+// from the deal (TOKENS_PER_PLAYER tokens of uniformly random colors) and is
+// corrected by what the player sees: a bid or an offer shows a color is held,
+// a refusal or a call for proposals that it is not, and a trade moves one
+// token each way. Each event is O(1).
+//
+// Other players move and trade out of sight, so an observation fades back
+// towards the deal with every turn of ours: p(now) = prior + (p - prior) *
+// RELAX^(turns since). Applied when the cell is read or written, so a turn
+// does not touch the table. Tokens only change hands by trades and are spent
+// by moves, so a seat seen without a color rarely gets one: the fade is slow.
+public class InventoryBelief implements java.io.Serializable {
+
+    // Share of an observation left after one turn
+    private static final double RELAX = 0.95;
+
+    private static final int COLORS = GameConfig.NUM_COLORS;
+    // Chance the deal gives a seat at least one token of a color
+    private static final double PRIOR;
+    // Chance a seat still holds a color after handing one over: at least two, given at least one
+    private static final double KEEP;
+
+    static {
+        int t = GameConfig.TOKENS_PER_PLAYER;
+        double q = 1 - 1.0 / COLORS;
+        double none = Math.pow(q, t);
+        double one = t * (1.0 / COLORS) * Math.pow(q, t - 1);
+        PRIOR = 1 - none;
+        KEEP = PRIOR > 0 ? (1 - none - one) / PRIOR : 0;
+    }
+
+    // Per cell seat * COLORS + color: the chance as of turn seen[cell]
+    private final double[] holds;
+    private final int[] seen;
+    private int turn;
+
+    public InventoryBelief(int seats) {
+        holds = new double[seats * COLORS];
+        seen = new int[seats * COLORS];
+        Arrays.fill(holds, PRIOR);
+    }
+
+    // One turn of ours went by
+    public void tick() {
+        turn++;
+    }
+
+    // ---- observations ----
+
+    // The seat showed it holds the color: a bid on it, or an offer of it
+    public void has(int seat, int color) {
+        if (valid(seat, color)) set(seat * COLORS + color, 1);
+    }
+
+    // The seat showed it holds none: a refusal of a call for it, or a call of its own for it
+    public void lacks(int seat, int color) {
+        if (valid(seat, color)) set(seat * COLORS + color, 0);
+    }
+
+    // The seat handed a token of the color over
+    public void gave(int seat, int color) {
+        if (valid(seat, color)) set(seat * COLORS + color, holds(seat, color) * KEEP);
+    }
+
+    // The seat received a token of the color
+    public void got(int seat, int color) {
+        if (valid(seat, color)) set(seat * COLORS + color, 1);
+    }
+
+    // ---- estimate ----
+
+    // Chance that the seat holds at least one token of the color
+    public double holds(int seat, int color) {
+        if (!valid(seat, color)) return 0;
+        int cell = seat * COLORS + color;
+        int age = turn - seen[cell];
+        if (age == 0) return holds[cell];
+        return PRIOR + (holds[cell] - PRIOR) * Math.pow(RELAX, age);
+    }
+
+    private void set(int cell, double value) {
+        holds[cell] = value;
+        seen[cell] = turn;
+    }
+
+    private boolean valid(int seat, int color) {
+        return seat >= 0 && color >= 0 && color < COLORS && seat * COLORS < holds.length;
+    }
+}
@@ -0,0 +1,202 @@
+import jade.core.AID;
+import jade.lang.acl.ACLMessage;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Runs AgentLogic agents without the JADE platform: no thread per agent, just
+// a mailbox each and a small pool of carrier threads. An agent with mail (or
+// a deadline due) is scheduled on the pool, handles up to BATCH messages and
+// yields, so tens of thousands of agents share a few threads. Messages are
+// the same ACLMessages as on JADE, delivered by local name.
+//
+// Mailboxes never drop a message: players only change their copy of a game
+// by the host's deltas, so one lost message would desync them for good, and a
+// sender cannot wait for room without stalling its carrier. A mailbox past its
+// capacity keeps growing; the runtime and GameMetrics count the messages
+// queued past it and the deepest mailbox. Only mail to an unknown agent is
+// dropped. Deadlines returned by expire() are kept by one timer thread that
+// only reschedules the agent.
+public class LiteRuntime {
+
+    // Messages handled per activation before the agent goes back in line
+    private static final int BATCH = 64;
+    public static final int MAILBOX_CAPACITY = Integer.getInteger("game.mailboxCapacity", 1000);
+
+    private final Map<String, LiteAgent> agents = new ConcurrentHashMap<>();
+    private final ExecutorService carriers;
+    private final ScheduledExecutorService timer;
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong overCapacity = new AtomicLong();
+    private final GameMetrics metrics = GameMetrics.get();
+
+    public LiteRuntime(int carrierThreads) {
+        carriers = Executors.newFixedThreadPool(carrierThreads, daemon("lite-carrier"));
+        timer = Executors.newSingleThreadScheduledExecutor(daemon("lite-timer"));
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, name + "-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    // Register and start an agent; its start() runs on a carrier before any message
+    public void spawn(String name, AgentLogic logic) {
+        spawn(name, logic, MAILBOX_CAPACITY);
+    }
+
+    // An agent that many others answer at once (a host) expects a deeper mailbox
+    public void spawn(String name, AgentLogic logic, int mailboxCapacity) {
+        LiteAgent agent = new LiteAgent(name, logic, mailboxCapacity);
+        if (agents.putIfAbsent(name, agent) != null) {
+            throw new IllegalArgumentException("Agent " + name + " already exists");
+        }
+        agent.schedule();
+    }
+
+    // Wait until the named agent has deleted itself
+    public void join(String name) throws InterruptedException {
+        LiteAgent agent = agents.get(name);
+        if (agent != null) agent.terminated.await();
+    }
+
+    public int size() { return agents.size(); }
+    public long getDelivered() { return delivered.get(); }
+    // Messages to agents that do not exist
+    public long getDropped() { return dropped.get(); }
+    // Messages queued while their mailbox was past its capacity
+    public long getOverCapacity() { return overCapacity.get(); }
+
+    public void shutdown() {
+        timer.shutdownNow();
+        carriers.shutdownNow();
+    }
+
+    private void deliver(String to, ACLMessage msg) {
+        LiteAgent agent = agents.get(to);
+        if (agent == null) {
+            dropped.incrementAndGet();
+            return;
+        }
+        agent.enqueue(msg);
+        delivered.incrementAndGet();
+    }
+
+    private final class LiteAgent implements AgentPort, Runnable {
+
+        private final String name;
+        private final AID aid;
+        private final AgentLogic logic;
+        private final int capacity;
+        private final ConcurrentLinkedQueue<ACLMessage> mailbox = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        // Set while the agent is queued or running on a carrier, so it never runs twice at once
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final CountDownLatch terminated = new CountDownLatch(1);
+        private boolean started;
+        private volatile boolean deleted;
+        // Earliest wake-up already handed to the timer
+        private volatile long timerAt = Long.MAX_VALUE;
+        // A wake-up fired and expire() has not run since; like the mailbox, checked again after
+        // the agent gives up its carrier, as the wake-up cannot schedule it while it runs
+        private volatile boolean wakePending;
+
+        LiteAgent(String name, AgentLogic logic, int capacity) {
+            this.name = name;
+            this.aid = new AID(name, AID.ISLOCALNAME);
+            this.logic = logic;
+            this.capacity = capacity;
+        }
+
+        void enqueue(ACLMessage msg) {
+            mailbox.add(msg);
+            int depth = queued.incrementAndGet();
+            if (depth > capacity) {
+                overCapacity.incrementAndGet();
+                metrics.mailboxOverCapacity(depth);
+            }
+            schedule();
+        }
+
+        void schedule() {
+            if (!deleted && scheduled.compareAndSet(false, true)) {
+                carriers.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (!started) {
+                    started = true;
+                    logic.start(this);
+                }
+                ACLMessage msg;
+                for (int i = 0; i < BATCH && !deleted && (msg = mailbox.poll()) != null; i++) {
+                    queued.decrementAndGet();
+                    logic.handle(msg);
+                }
+                wakePending = false;
+                long now = System.currentTimeMillis();
+                long next = deleted ? Long.MAX_VALUE : logic.expire(now);
+                if (next < timerAt) {
+                    timerAt = next;
+                    timer.schedule(this::wake, Math.max(0, next - now), TimeUnit.MILLISECONDS);
+                }
+            } catch (RuntimeException e) {
+                GameLog.error(name, "failed: {}", e);
+            } finally {
+                scheduled.set(false);
+            }
+            if (deleted) {
+                agents.remove(name, this);
+                terminated.countDown();
+            } else if (!mailbox.isEmpty() || wakePending) {
+                schedule();
+            }
+        }
+
+        // Timer thread: the deadline is due, let the agent run its expire()
+        private void wake() {
+            timerAt = Long.MAX_VALUE;
+            wakePending = true;
+            schedule();
+        }
+
+        @Override
+        public String getLocalName() {
+            return name;
+        }
+
+        // All receivers get the same message object, as nobody changes a message once sent
+        @Override
+        public void send(ACLMessage msg) {
+            msg.setSender(aid);
+            Iterator<?> receivers = msg.getAllReceiver();
+            while (receivers.hasNext()) {
+                deliver(((AID) receivers.next()).getLocalName(), msg);
+            }
+        }
+
+        @Override
+        public void doDelete() {
+            deleted = true;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+import jade.core.behaviours.CyclicBehaviour;
+import jade.lang.acl.ACLMessage;
+import jade.lang.acl.MessageTemplate;
+
+// Runs an AgentLogic as a JADE behaviour: one message per action(), then the
+// due deadlines. The agent thread is never parked; the behaviour blocks until
+// the next message or the logic's next deadline.
+public class LogicBehaviour extends CyclicBehaviour {
+
+    private final AgentLogic logic;
+    // Messages left to the agent's other behaviours stay in the queue; null takes all
+    private final MessageTemplate template;
+
+    public LogicBehaviour(AgentLogic logic) {
+        this(logic, null);
+    }
+
+    public LogicBehaviour(AgentLogic logic, MessageTemplate template) {
+        this.logic = logic;
+        this.template = template;
+    }
+
+    @Override
+    public void action() {
+        ACLMessage msg = template == null ? myAgent.receive() : myAgent.receive(template);
+        if (msg != null) {
+            logic.handle(msg);
+        }
+        long now = System.currentTimeMillis();
+        long next = logic.expire(now);
+        if (msg != null) return;
+        if (next == Long.MAX_VALUE) {
+            block();
+        } else if (next > now) {
+            block(next - now);
+        }
+    }
+}
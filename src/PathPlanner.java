@@ -0,0 +1,153 @@
+import java.util.Arrays;
+
+// Token-aware path planning. Entering a cell costs one token of its color;
+// a missing token means a trade. A player holds only a handful of tokens, so
+// on a long path every cell past the first few is a trade whichever way it
+// goes: what matters is spending the held tokens on cells of their colors,
+// as early as possible (each miss is a blocked turn and a negotiation that
+// may fail). A detour costs two extra cells, more than it can save, so only
+// shortest paths are considered.
+//
+// The planner searches the shortest paths over the next HORIZON steps with
+// the exact token counts (branch and bound, greedy axis first) and keeps the
+// best as a plan per seat (players may share a goal, never a plan).
+// Following the plan consumes the tokens it
+// expects, so later turns just read the next cell; the plan is only redone
+// when the tokens change some other way (a trade), the player is off the
+// plan, or the plan runs out.
+public class PathPlanner {
+
+    // Steps planned exactly; at most 2^HORIZON paths, far fewer after pruning
+    public static final int HORIZON = 10;
+
+    // Score of a cell paid from held tokens; the moves-before-first-trade bonus stays below it
+    private static final int PAID = HORIZON + 1;
+
+    private final Board board;
+    private final int numColors = GameConfig.NUM_COLORS;
+    // By seat, made on the seat's first step
+    private final Plan[] plans;
+
+    // Search scratch space
+    private final int[] counts = new int[numColors];
+    private final int[] path = new int[HORIZON];
+    private final int[] bestPath = new int[HORIZON];
+    private int bestScore;
+    private int tokensLeft;
+
+    // Planned cells towards one goal, and the token counts expected before each of them
+    private final class Plan {
+        final int[] cells = new int[HORIZON];
+        final int[] expected = new int[HORIZON * numColors];
+        int goal;
+        int start;
+        int length;
+        int next;
+    }
+
+    public PathPlanner(Board board, int players) {
+        this.board = board;
+        this.plans = new Plan[players];
+    }
+
+    /**
+     * Board index of the next cell on the best shortest path from (x, y) to
+     * the goal for the seat's player holding the given tokens, or the current
+     * cell if the player is already there.
+     */
+    public int nextStep(int seat, int x, int y, int goalX, int goalY, TokenBag tokens) {
+        int here = board.index(x, y);
+        if (x == goalX && y == goalY) return here;
+
+        Plan plan = plans[seat];
+        if (plan == null) plan = plans[seat] = new Plan();
+
+        // Resume the plan if it leads to this goal, we stand where it left off, holding what it expects
+        int at = plan.next == 0 ? plan.start : plan.cells[plan.next - 1];
+        if (plan.next >= plan.length || plan.goal != board.index(goalX, goalY) || at != here
+                || !matches(plan.expected, plan.next * numColors, tokens)) {
+            plan(plan, x, y, goalX, goalY, tokens);
+        }
+        return plan.cells[plan.next++];
+    }
+
+    // Trades the best path from (x, y) needs within the horizon
+    public int plannedTrades(int x, int y, int goalX, int goalY, TokenBag tokens) {
+        if (x == goalX && y == goalY) return 0;
+        Plan plan = new Plan();
+        plan(plan, x, y, goalX, goalY, tokens);
+        return plan.length - bestScore / PAID;
+    }
+
+    public void clear() {
+        Arrays.fill(plans, null);
+    }
+
+    private boolean matches(int[] expected, int offset, TokenBag tokens) {
+        for (int c = 0; c < numColors; c++) {
+            if (expected[offset + c] != tokens.count(c)) return false;
+        }
+        return true;
+    }
+
+    private void plan(Plan plan, int x, int y, int goalX, int goalY, TokenBag tokens) {
+        for (int c = 0; c < numColors; c++) counts[c] = tokens.count(c);
+        tokensLeft = tokens.size();
+        int depth = Math.min(HORIZON, Math.abs(goalX - x) + Math.abs(goalY - y));
+        bestScore = -1;
+        search(x, y, goalX, goalY, 0, depth, 0, true);
+
+        // Replay the best path to record the tokens expected before each step
+        plan.goal = board.index(goalX, goalY);
+        plan.start = board.index(x, y);
+        plan.length = depth;
+        plan.next = 0;
+        for (int c = 0; c < numColors; c++) counts[c] = tokens.count(c);
+        for (int i = 0; i < depth; i++) {
+            plan.cells[i] = bestPath[i];
+            System.arraycopy(counts, 0, plan.expected, i * numColors, numColors);
+            int color = board.colorAt(bestPath[i]);
+            if (counts[color] > 0) counts[color]--;
+        }
+    }
+
+    // Score: cells paid from held tokens, then moves made before the first trade
+    private void search(int x, int y, int goalX, int goalY, int step, int depth, int score, boolean prefix) {
+        if (step == depth) {
+            if (score > bestScore) {
+                bestScore = score;
+                System.arraycopy(path, 0, bestPath, 0, depth);
+            }
+            return;
+        }
+        // Even paying every remaining cell we have tokens for would not beat the best so far
+        int remaining = depth - step;
+        int payable = Math.min(remaining, tokensLeft);
+        if (score + payable * PAID + (prefix ? payable : 0) <= bestScore) return;
+
+        // Greedy axis first, so ties keep GameEngine's step
+        int gx = GameEngine.nextX(x, y, goalX, goalY);
+        int gy = GameEngine.nextY(x, y, goalX, goalY);
+        visit(gx, gy, goalX, goalY, step, depth, score, prefix);
+        if (gx != x && y != goalY) {
+            visit(x, y + Integer.signum(goalY - y), goalX, goalY, step, depth, score, prefix);
+        } else if (gy != y && x != goalX) {
+            visit(x + Integer.signum(goalX - x), y, goalX, goalY, step, depth, score, prefix);
+        }
+    }
+
+    private void visit(int nx, int ny, int goalX, int goalY, int step, int depth, int score, boolean prefix) {
+        int cell = board.index(nx, ny);
+        int color = board.colorAt(cell);
+        path[step] = cell;
+        if (counts[color] > 0) {
+            counts[color]--;
+            tokensLeft--;
+            search(nx, ny, goalX, goalY, step + 1, depth, score + PAID + (prefix ? 1 : 0), prefix);
+            tokensLeft++;
+            counts[color]++;
+        } else {
+            search(nx, ny, goalX, goalY, step + 1, depth, score, false);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+import jade.core.AID;
+import jade.core.Agent;
+import jade.core.behaviours.CyclicBehaviour;
+import jade.core.behaviours.TickerBehaviour;
+import jade.lang.acl.ACLMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Keeps players that trade often in the same container. Players report their
+// trade partners (see PlayerLogic), the reports feed a TradeGraph, and every
+// GameConfig.PLACEMENT_PERIOD_MS the planner picks the players to move; each
+// is asked to migrate with a "placement" request. Agent arguments: player
+// count, then the names of the containers the players run in.
+public class PlacementAgent extends Agent {
+
+    // Half of the trading weight is forgotten every period
+    private static final double DECAY = 0.5;
+    // A move must save this many trades' worth of cross-container messages
+    private static final double MIN_GAIN = 4;
+    private static final double CAPACITY_SLACK = 0.25;
+
+    private final TradeGraph graph = new TradeGraph();
+    private Map<String, String> placement;
+    private List<String> containers;
+    private int capacity;
+    private int maxMoves;
+    private long migrations;
+
+    @Override
+    protected void setup() {
+        Object[] args = getArguments();
+        int players = Integer.parseInt(args[0].toString());
+        containers = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) containers.add(args[i].toString());
+        placement = PlacementPlanner.initial(players, containers);
+        capacity = PlacementPlanner.capacity(players, containers.size(), CAPACITY_SLACK);
+        maxMoves = Math.max(1, players / 10);
+        GameLog.info(getLocalName(), "placing {} players over {} containers", players, containers.size());
+
+        addBehaviour(new ReportReceiver());
+        addBehaviour(new TickerBehaviour(this, GameConfig.PLACEMENT_PERIOD_MS) {
+            @Override
+            protected void onTick() {
+                replan();
+            }
+        });
+    }
+
+    private void replan() {
+        graph.decay(DECAY);
+        Map<String, String> moves = PlacementPlanner.plan(graph, placement, containers, capacity, MIN_GAIN, maxMoves);
+        for (Map.Entry<String, String> move : moves.entrySet()) {
+            ACLMessage msg = new ACLMessage(ACLMessage.REQUEST);
+            msg.addReceiver(new AID(move.getKey(), AID.ISLOCALNAME));
+            msg.setConversationId("placement");
+            GameCodec.write(msg, new GameMessage.Migrate(move.getValue()));
+            send(msg);
+            GameLog.debug(getLocalName(), "moving {} to {}", move.getKey(), move.getValue());
+        }
+        if (!moves.isEmpty()) {
+            GameMetrics.get().sent("placement", moves.size());
+            migrations += moves.size();
+            GameLog.info(getLocalName(), "moved {} players, {} in total", moves.size(), migrations);
+        }
+    }
+
+    // Takes every message, so failures of requests to players that are gone do not pile up
+    private class ReportReceiver extends CyclicBehaviour {
+        @Override
+        public void action() {
+            ACLMessage msg = myAgent.receive();
+            if (msg == null) {
+                block();
+                return;
+            }
+            if (!"trade-report".equals(msg.getConversationId()) || msg.getPerformative() != ACLMessage.INFORM) return;
+            GameMetrics.get().received("trade-report");
+            String reporter = msg.getSender().getLocalName();
+            GameMessage.TradeReport report = (GameMessage.TradeReport) GameCodec.read(msg);
+            report.trades().forEach((partner, n) -> graph.record(reporter, partner, n));
+        }
+    }
+}
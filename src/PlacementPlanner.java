@@ -0,0 +1,73 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Which container each player runs in. Players start spread evenly; then each
+// round moves a player to the container that holds most of its trading, so
+// frequent partners end up side by side and their negotiations stay inside
+// one JVM. A move must gain more than minGain trades over staying (so two
+// containers do not trade a player back and forth), containers stay within
+// capacity, and only maxMoves players move per round.
+public class PlacementPlanner {
+
+    // Player1..N, round robin over the containers
+    public static Map<String, String> initial(int players, List<String> containers) {
+        Map<String, String> placement = new LinkedHashMap<>();
+        for (int i = 1; i <= players; i++) {
+            placement.put("Player" + i, containers.get((i - 1) % containers.size()));
+        }
+        return placement;
+    }
+
+    // Most players a container takes: the even share plus some slack for grouping
+    public static int capacity(int players, int containers, double slack) {
+        return (int) Math.ceil(players / (double) containers * (1 + slack));
+    }
+
+    // Moves for this round, agent -> container; placement is updated as moves are chosen
+    public static Map<String, String> plan(TradeGraph graph, Map<String, String> placement, List<String> containers,
+                                           int capacity, double minGain, int maxMoves) {
+        Map<String, Integer> load = new HashMap<>();
+        for (String c : containers) load.put(c, 0);
+        for (String c : placement.values()) load.merge(c, 1, Integer::sum);
+
+        // Busiest traders first: they save the most cross-container messages
+        List<String> agents = new ArrayList<>(graph.agents());
+        agents.removeIf(a -> !placement.containsKey(a));
+        agents.sort(Comparator.comparingDouble(graph::totalWeight).reversed().thenComparing(Comparator.naturalOrder()));
+
+        Map<String, String> moves = new LinkedHashMap<>();
+        for (String agent : agents) {
+            if (moves.size() >= maxMoves) break;
+            String here = placement.get(agent);
+
+            // Trade weight towards each container
+            Map<String, Double> towards = new HashMap<>();
+            for (Map.Entry<String, Double> e : graph.partners(agent).entrySet()) {
+                String there = placement.get(e.getKey());
+                if (there != null) towards.merge(there, e.getValue(), Double::sum);
+            }
+            double stay = towards.getOrDefault(here, 0.0);
+
+            String best = null;
+            double bestGain = minGain;
+            for (String c : containers) {
+                double gain = towards.getOrDefault(c, 0.0) - stay;
+                if (!c.equals(here) && gain > bestGain && load.get(c) < capacity) {
+                    best = c;
+                    bestGain = gain;
+                }
+            }
+            if (best != null) {
+                moves.put(agent, best);
+                placement.put(agent, best);
+                load.merge(here, -1, Integer::sum);
+                load.merge(best, 1, Integer::sum);
+            }
+        }
+        return moves;
+    }
+}
@@ -0,0 +1,711 @@
+import jade.core.AID;
+import jade.lang.acl.ACLMessage;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.*;
+import java.util.function.Supplier;
+
+// A player's side of the game, for any number of sessions at once: moves,
+// calls for proposals, bids, payments and betrayals. Runs on JADE through
+// PlayerAgent or on LiteRuntime; it never blocks on a reply, so while our own
+// negotiations are open, calls from other players are still answered, and
+// each negotiation is bounded by its deadline.
+//
+// Our state in each game is a copy of the host's: we answer a turn with an
+// intent and only change the copy by the deltas the host sends back.
+//
+// Each seat keeps an InventoryBelief of what the others hold, from the bids,
+// refusals, calls and trades it sees, and calls for proposals only the peers
+// most likely to hold the color (GameConfig.INVENTORY_BELIEF).
+//
+// With a token exchange (GameConfig.EXCHANGE_AGENT) a blocked turn sends one
+// order there instead of a call for proposals, and each seat keeps a few
+// spare tokens escrowed at the exchange for others to buy.
+//
+// Serializable, so a JADE player can move to another container mid-game with
+// all its seats; the strategies and the metrics are per JVM and made afresh.
+public class PlayerLogic implements AgentLogic, Serializable {
+
+    // Makes each seat's strategy (what to offer, whom to trade with, whether to pay): -Dgame.strategy
+    private transient Supplier<PlayerStrategy> strategies;
+    // Messages and trade outcomes, published over JMX
+    private transient GameMetrics metrics = GameMetrics.get();
+    // Trades we initiated since the last report to GameConfig.PLACEMENT_AGENT, by partner
+    private final Map<String, Integer> unreported = new HashMap<>();
+    private int unreportedTrades;
+
+    private AgentPort port;
+    private String name;
+
+    private static final int MAX_BLOCKED_TURNS = GameConfig.MAX_BLOCKED_TURNS;
+    private static final int REPORT_TRADES = 16;
+    // Trust index entries a call for proposals looks through for the most trusted peers of its
+    // session; a shared table holds the players of every session in the JVM
+    private static final int MAX_TRUST_SCAN = 256;
+    // Spare tokens a seat keeps escrowed at the exchange
+    private static final int ASKS_PER_SEAT = 3;
+
+    // Our seat in each game session we play, by session id ("" for the single JADE game)
+    private final Map<String, Seat> seats = new HashMap<>();
+    // Open negotiations of every seat, earliest deadline first; closed ones are skipped when they come up
+    private final PriorityQueue<Negotiation> deadlines = new PriorityQueue<>();
+
+    // One game from our side: position, goal, tokens, trust in the others and what they
+    // likely hold (the rules live in PlayerState/GameEngine), our open call for proposals,
+    // if any, and tokens we reserved for other players' calls. Dropped when the session
+    // tells us it is over.
+    private static class Seat implements Serializable {
+        final String session;
+        // The agent hosting the session, told of every bid we make
+        final String host;
+        final PlayerState state;
+        final List<String> players;
+        final List<String> otherPlayers;
+        final Set<String> peers;
+        final Map<String, Integer> seatOf = new HashMap<>();
+        final InventoryBelief beliefs;
+        // Our own strategy in this game: a search strategy decides at the offer whether it will pay,
+        // and another seat's offer must not come in between
+        transient PlayerStrategy strategy;
+        // Our side of the trades goes to the shared journal, if one is open; it records one
+        // game at a time, so only the single JADE game is journaled, and only where it started
+        final transient GameJournal journal;
+        Negotiation negotiation;
+        int negotiationCount = 0;
+        final Map<String, Integer> reserved = new HashMap<>();
+        // Tokens escrowed at the exchange as asks, out of our copy until sold or handed back
+        final TokenBag escrow = new TokenBag();
+
+        Seat(String session, String host, PlayerState state, List<String> players, PlayerStrategy strategy) {
+            this.session = session;
+            this.host = host;
+            this.state = state;
+            this.players = players;
+            this.otherPlayers = new ArrayList<>(players);
+            this.otherPlayers.remove(state.getName());
+            this.peers = new HashSet<>(otherPlayers);
+            for (int i = 0; i < players.size(); i++) seatOf.put(players.get(i), i);
+            this.beliefs = new InventoryBelief(players.size());
+            this.strategy = strategy;
+            this.journal = session.isEmpty() ? GameJournal.shared() : null;
+        }
+
+        String conversation(String base) {
+            return ConversationId.of(session, base);
+        }
+
+        // Seat index of a player in the game ("Player3" -> 2 in the single game), -1 if not in it
+        int seat(String name) {
+            return seatOf.getOrDefault(name, -1);
+        }
+    }
+
+    // One contract-net round started by a blocked turn, or one order on the exchange. Each
+    // CFP or order carries its own conversation id (also used as reply-with), so bids and
+    // fills are matched to it exactly.
+    private static class Negotiation implements Serializable, Comparable<Negotiation> {
+        final Seat seat;
+        final ACLMessage turnMsg;
+        final String id;
+        final int need;
+        final int offer;
+        // Step the turn asked for, taken if the exchange hands our own ask back
+        final int direction;
+        final long deadline;
+        int pending;
+        // Payment escrowed with an exchange order, -1 if none
+        int paid = -1;
+        final Map<String, ACLMessage> bids = new LinkedHashMap<>();
+
+        Negotiation(Seat seat, ACLMessage turnMsg, String id, int need, int offer, int direction, int peers) {
+            this.seat = seat;
+            this.turnMsg = turnMsg;
+            this.id = id;
+            this.need = need;
+            this.offer = offer;
+            this.direction = direction;
+            this.pending = peers;
+            this.deadline = System.currentTimeMillis() + GameConfig.NEGOTIATION_TIMEOUT_MS;
+        }
+
+        @Override
+        public int compareTo(Negotiation o) {
+            return Long.compare(deadline, o.deadline);
+        }
+    }
+
+    public PlayerLogic() {
+        this(() -> PlayerStrategy.fromConfig(new SplittableRandom()));
+    }
+
+    // Given strategies (the benchmarks play honest traders); after a move to another
+    // container the player goes back to -Dgame.strategy
+    public PlayerLogic(Supplier<PlayerStrategy> strategies) {
+        this.strategies = strategies;
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        strategies = () -> PlayerStrategy.fromConfig(new SplittableRandom());
+        for (Seat seat : seats.values()) seat.strategy = strategies.get();
+        metrics = GameMetrics.get();
+    }
+
+    @Override
+    public void start(AgentPort port) {
+        this.port = port;
+        this.name = port.getLocalName();
+    }
+
+    // Close every negotiation past its deadline
+    @Override
+    public long expire(long now) {
+        Negotiation next;
+        while ((next = deadlines.peek()) != null) {
+            if (next.seat.negotiation != next) {
+                deadlines.poll();
+                continue;
+            }
+            if (next.deadline > now) return next.deadline;
+            deadlines.poll();
+            closeNegotiation(next.seat);
+        }
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public void handle(ACLMessage msg) {
+        String conversation = msg.getConversationId();
+        metrics.received(conversation);
+        String session = ConversationId.sessionOf(conversation);
+        String base = ConversationId.baseOf(conversation);
+        if (base.equals("init")) {
+            handleInit(session, msg.getSender().getLocalName(), (GameMessage.Init) GameCodec.read(msg));
+            return;
+        }
+
+        // Anything else belongs to a session we sit in, or one that just ended
+        Seat seat = seats.get(session);
+        if (seat == null) return;
+        switch (base) {
+            case "your-turn":
+                handleTurn(seat, msg, (GameMessage.TurnRequest) GameCodec.read(msg));
+                break;
+            case "turn-delta":
+                applyDelta(seat, (GameMessage.TurnDelta) GameCodec.read(msg));
+                break;
+            case "game-over":
+                leave(seat);
+                break;
+            case "exchange":
+                GameMessage content = GameCodec.read(msg);
+                if (content instanceof GameMessage.Fill fill) {
+                    handleFill(seat, msg, fill);
+                } else if (content instanceof GameMessage.Sale sale) {
+                    handleSale(seat, sale);
+                }
+                break;
+            default:
+                if (base.startsWith("negotiation")) handleNegotiation(seat, msg);
+                break;
+        }
+    }
+
+    /**
+     * Init carries start, goal, dealt tokens and the list of all players.
+     */
+    private void handleInit(String session, String host, GameMessage.Init init) {
+        PlayerState state = new PlayerState(name, init.startX(), init.startY(), init.goalX(), init.goalY(), init.tokens());
+
+        // Dynamic list of players received in init message
+        Seat seat = new Seat(session, host, state, new ArrayList<>(init.players()), strategies.get());
+        seats.put(session, seat);
+
+        // Hosted sessions come by the thousand: their milestones are debug lines
+        if (session.isEmpty()) {
+            GameLog.info(name, "initialized at ({},{}), goal: ({},{})", state.getX(), state.getY(), state.getGoalX(), state.getGoalY());
+            GameLog.info(name, "has tokens: {}", state.getTokens());
+        } else {
+            GameLog.debug(name, "joined session '{}', goal: ({},{})", session, state.getGoalX(), state.getGoalY());
+        }
+        postAsks(seat);
+    }
+
+    // The session is over: forget its state, including any open negotiation and reservation
+    private void leave(Seat seat) {
+        seats.remove(seat.session);
+        seat.negotiation = null;
+        GameLog.debug(name, "left session '{}'", seat.session);
+    }
+
+    /**
+     * Move to the cell MainAgent planned (cheapest path under our tokens).
+     * When blocked, open a negotiation instead of answering right away; the
+     * intent is sent once the negotiation closes.
+     */
+    private void handleTurn(Seat seat, ACLMessage turnMsg, GameMessage.TurnRequest request) {
+        PlayerState state = seat.state;
+        // A negotiation still open here belongs to a turn MainAgent already gave up on
+        if (seat.negotiation != null) closeNegotiation(seat);
+        seat.beliefs.tick();
+
+        int requiredColor = request.color();
+        GameLog.debug(name, "other players: {}", seat.otherPlayers);
+
+        // MainAgent plans the path over the board; older senders leave it to the greedy step
+        int nextX = request.hasTarget() ? request.x() : GameEngine.nextX(state.getX(), state.getY(), state.getGoalX(), state.getGoalY());
+        int nextY = request.hasTarget() ? request.y() : GameEngine.nextY(state.getX(), state.getY(), state.getGoalX(), state.getGoalY());
+
+        int direction = GameMessage.TurnIntent.direction(nextX - state.getX(), nextY - state.getY());
+        if (direction >= 0 && state.hasToken(requiredColor)) {
+            GameLog.debug(name, "moving to ({},{}) using '{}'.", nextX, nextY, GameConfig.colorName(requiredColor));
+            sendIntent(seat, turnMsg, GameMessage.TurnIntent.move(direction));
+            return;
+        }
+
+        if (seat.otherPlayers.isEmpty()) {
+            sendIntent(seat, turnMsg, GameMessage.TurnIntent.pass());
+            return;
+        }
+
+        // Contract net: one call for proposals to every peer at once
+        int offer = seat.strategy.offerColor(state, requiredColor, seat.otherPlayers);
+        if (seat.strategy instanceof SearchStrategy) {
+            SearchStrategy search = (SearchStrategy) seat.strategy;
+            GameLog.debug(name, "searched {} positions to depth {} ({} nodes/s).",
+                    search.getLastNodes(), search.getLastDepth(), Math.round(search.lastNodesPerSecond()));
+        }
+        boolean exchange = GameConfig.EXCHANGE_AGENT != null;
+        List<String> peers = exchange ? null : cfpPeers(seat, requiredColor);
+        Negotiation negotiation = new Negotiation(seat, turnMsg,
+                seat.conversation("negotiation-" + name + "-" + (++seat.negotiationCount)), requiredColor, offer, direction,
+                exchange ? 1 : peers.size());
+        seat.negotiation = negotiation;
+        deadlines.add(negotiation);
+        GameLog.debug(name, "blocked ({}). Needs '{}'. {}", state.getBlockedTurns() + 1, GameConfig.colorName(requiredColor),
+                exchange ? "Ordering from the exchange." : "Calling for proposals.");
+
+        if (seat.journal != null) seat.journal.proposal(seat.seat(name), requiredColor, offer);
+        if (exchange) {
+            placeOrder(seat, negotiation, requiredColor);
+            return;
+        }
+
+        ACLMessage cfp = new ACLMessage(ACLMessage.CFP);
+        for (String other : peers) cfp.addReceiver(new AID(other, AID.ISLOCALNAME));
+        cfp.setConversationId(negotiation.id);
+        cfp.setReplyWith(negotiation.id);
+        GameCodec.write(cfp, new GameMessage.Proposal(requiredColor, offer));
+        port.send(cfp);
+        metrics.sent(negotiation.id, peers.size());
+        metrics.proposals(peers.size());
+    }
+
+    // Whom a call for proposals goes to: the peers most likely to hold the color, if we keep
+    // beliefs, else every peer; with GameConfig.CFP_PEERS no more than that many
+    private List<String> cfpPeers(Seat seat, int need) {
+        if (GameConfig.INVENTORY_BELIEF) return likelyPeers(seat, need);
+        List<String> others = seat.otherPlayers;
+        int k = GameConfig.CFP_PEERS;
+        if (k <= 0 || k >= others.size()) return others;
+
+        // The most trusted first, then the others from a point that moves with each call, those
+        // we hold nothing against before the rest
+        Reputation reputation = seat.state.getReputation();
+        List<String> peers = new ArrayList<>(k);
+        reputation.topTrusted(k, MAX_TRUST_SCAN, seat.peers::contains, peers);
+        int start = seat.negotiationCount % others.size();
+        for (int pass = 0; pass < 2 && peers.size() < k; pass++) {
+            for (int i = 0; i < others.size() && peers.size() < k; i++) {
+                String peer = others.get((start + i) % others.size());
+                if ((pass == 1 || reputation.trust(peer) >= 0) && !peers.contains(peer)) peers.add(peer);
+            }
+        }
+        return peers;
+    }
+
+    // Peers by the chance they hold the color, the more trusted first among equals, until one of
+    // those called holds it with GameConfig.CFP_CONFIDENCE. Picks one at a time, as a call takes
+    // two or three peers, not all of them. Peers believed not to hold it are never called; if
+    // nobody is believed to, the most trusted peer is, as beliefs may be stale.
+    private List<String> likelyPeers(Seat seat, int need) {
+        List<String> others = seat.otherPlayers;
+        int n = others.size();
+        int k = GameConfig.CFP_PEERS > 0 ? Math.min(GameConfig.CFP_PEERS, n) : n;
+        Reputation reputation = seat.state.getReputation();
+        double[] holds = new double[n];
+        double[] trust = new double[n];
+        for (int i = 0; i < n; i++) {
+            holds[i] = seat.beliefs.holds(seat.seat(others.get(i)), need);
+            trust[i] = reputation.trust(others.get(i));
+        }
+
+        List<String> peers = new ArrayList<>();
+        // Chance that none of the peers picked so far holds the color
+        double missed = 1;
+        int start = seat.negotiationCount % n;
+        while (peers.size() < k && missed > 1 - GameConfig.CFP_CONFIDENCE) {
+            int best = -1;
+            for (int j = 0; j < n; j++) {
+                int i = (start + j) % n;
+                if (holds[i] < 0) continue;
+                if (best < 0 || holds[i] > holds[best] || (holds[i] == holds[best] && trust[i] > trust[best])) best = i;
+            }
+            if (holds[best] <= 0) break;
+            peers.add(others.get(best));
+            missed *= 1 - holds[best];
+            holds[best] = -1;
+        }
+        if (peers.isEmpty()) {
+            int trusted = start;
+            for (int j = 1; j < n; j++) {
+                int i = (start + j) % n;
+                if (trust[i] > trust[trusted]) trusted = i;
+            }
+            peers.add(others.get(trusted));
+        }
+        return peers;
+    }
+
+    private void handleNegotiation(Seat seat, ACLMessage msg) {
+        switch (msg.getPerformative()) {
+            case ACLMessage.CFP:
+                handleProposal(seat, msg);
+                break;
+            case ACLMessage.PROPOSE:
+            case ACLMessage.REFUSE:
+                handleBid(seat, msg);
+                break;
+            case ACLMessage.ACCEPT_PROPOSAL:
+                handleAccept(seat, msg);
+                break;
+            case ACLMessage.REJECT_PROPOSAL:
+                // Most likely the caller took the color from another bidder
+                seat.beliefs.got(seat.seat(msg.getSender().getLocalName()), releaseReservation(seat, msg.getConversationId()));
+                break;
+            default:
+                break;
+        }
+    }
+
+    // Initiator side: collect a bid for the open negotiation
+    private void handleBid(Seat seat, ACLMessage msg) {
+        Negotiation negotiation = seat.negotiation;
+        String sender = msg.getSender().getLocalName();
+        boolean current = negotiation != null
+                && negotiation.id.equals(msg.getConversationId())
+                && negotiation.id.equals(msg.getInReplyTo());
+        if (!current) {
+            // Too late for its negotiation: let the bidder release its reserved token
+            if (msg.getPerformative() == ACLMessage.PROPOSE) {
+                ACLMessage reject = msg.createReply();
+                reject.setPerformative(ACLMessage.REJECT_PROPOSAL);
+                GameCodec.write(reject, new GameMessage.ProposalReply(-1));
+                port.send(reject);
+                metrics.sent(reject.getConversationId(), 1);
+            }
+            return;
+        }
+
+        negotiation.pending--;
+        if (msg.getPerformative() == ACLMessage.PROPOSE) {
+            negotiation.bids.put(sender, msg);
+            seat.beliefs.has(seat.seat(sender), negotiation.need);
+        } else {
+            seat.state.recordRefusal(sender);
+            // A peer we betrayed too often refuses whatever it holds
+            if (seat.state.getBetrayalCount(sender) < Reputation.MAX_BETRAYALS) seat.beliefs.lacks(seat.seat(sender), negotiation.need);
+        }
+        if (negotiation.pending == 0) closeNegotiation(seat);
+    }
+
+    // Accept the most trusted bidder (first to answer on ties), reject the rest
+    private void closeNegotiation(Seat seat) {
+        Negotiation n = seat.negotiation;
+        seat.negotiation = null;
+        PlayerState state = seat.state;
+        GameJournal journal = seat.journal;
+
+        // An exchange order closed before its fill came: the escrowed payment is ours again
+        if (n.paid >= 0) state.addToken(n.paid);
+
+        if (n.bids.isEmpty()) {
+            GameLog.debug(name, "negotiation rejected or timed out.");
+            metrics.trade(false, false);
+            sendIntent(seat, n.turnMsg, GameMessage.TurnIntent.pass());
+            return;
+        }
+
+        List<String> bidders = new ArrayList<>(n.bids.keySet());
+        String other = seat.strategy.choosePartner(state, bidders);
+        GameMessage.TurnIntent intent = GameMessage.TurnIntent.pass();
+        for (String bidder : bidders) {
+            ACLMessage bid = n.bids.get(bidder);
+            ACLMessage reply = bid.createReply();
+            if (!bidder.equals(other)) {
+                reply.setPerformative(ACLMessage.REJECT_PROPOSAL);
+                GameCodec.write(reply, new GameMessage.ProposalReply(-1));
+                port.send(reply);
+                metrics.sent(reply.getConversationId(), 1);
+                if (journal != null) journal.reject(seat.seat(name), seat.seat(bidder));
+                continue;
+            }
+
+            GameLog.debug(name, "accepted the bid from {}.", other);
+
+            // The accept carries our side of the deal: the offered token, or nothing. The tokens
+            // change hands at the host, which sends both sides their deltas.
+            int payment = -1;
+            boolean honest = seat.strategy.paysHonestly(state, other, n.offer);
+            if (honest && n.offer >= 0 && state.hasToken(n.offer)) {
+                payment = n.offer;
+                GameLog.debug(name, "paying token: '{}'", GameConfig.colorName(payment));
+            } else {
+                GameLog.debug(name, "betrayed and sent nothing!");
+                state.recordBetrayal(other);
+            }
+            state.recordTrade(other);
+            reply.setPerformative(ACLMessage.ACCEPT_PROPOSAL);
+            GameCodec.write(reply, new GameMessage.Payment(payment));
+            port.send(reply);
+            metrics.sent(reply.getConversationId(), 1);
+
+            int tokenGiven = ((GameMessage.ProposalReply) GameCodec.read(bid)).token();
+            GameLog.debug(name, "receiving token: '{}'", GameConfig.colorName(tokenGiven));
+            seat.beliefs.gave(seat.seat(other), tokenGiven);
+            seat.beliefs.got(seat.seat(other), payment);
+            intent = GameMessage.TurnIntent.trade(seat.seat(other), tokenGiven, payment);
+            metrics.trade(true, payment < 0);
+            reportTrade(other);
+            if (journal != null) {
+                journal.accept(seat.seat(name), seat.seat(other), tokenGiven, payment);
+                if (payment < 0) journal.betrayal(seat.seat(name), seat.seat(other));
+            }
+        }
+        sendIntent(seat, n.turnMsg, intent);
+    }
+
+    // The host's account of a change to our state: a step, a token in and one out, our
+    // blocked turns and whether we are out
+    private void applyDelta(Seat seat, GameMessage.TurnDelta delta) {
+        PlayerState state = seat.state;
+        state.setX(state.getX() + delta.dx());
+        state.setY(state.getY() + delta.dy());
+        if (delta.gained() >= 0) state.addToken(delta.gained());
+        // Not consume(): the host may take a token we still hold back for a bid (see handleAccept),
+        // so the count can dip below zero until the accept puts it back
+        if (delta.lost() >= 0) state.getTokens().add(delta.lost(), -1);
+        state.setBlockedTurns(delta.blockedTurns());
+        if (delta.out() && !state.isDisqualified()) {
+            if (seat.session.isEmpty()) GameLog.info(name, "blocked {} times. Ending game.", MAX_BLOCKED_TURNS);
+            state.setDisqualified(true);
+        }
+        GameLog.debug(name, "now at ({},{}), holds: {}", state.getX(), state.getY(), state.getTokens());
+    }
+
+    /**
+     * Handle a call for proposals: bid only if you have the needed token.
+     * The token is reserved with the bid and handed over on accept, or
+     * put back on reject. The host is told of the bid first, as it only
+     * lets the caller take a token its holder offered.
+     */
+    private void handleProposal(Seat seat, ACLMessage msg) {
+        PlayerState state = seat.state;
+        GameMessage.Proposal proposal = (GameMessage.Proposal) GameCodec.read(msg);
+        int need = proposal.need();
+        String sender = msg.getSender().getLocalName();
+        // A call tells what the caller lacks and what it holds to pay with
+        seat.beliefs.lacks(seat.seat(sender), need);
+        seat.beliefs.has(seat.seat(sender), proposal.offer());
+
+        ACLMessage reply = msg.createReply();
+
+        // If this sender has betrayed too often, refuse immediately
+        if (state.isRepeatBetrayer(sender)) {
+            reply.setPerformative(ACLMessage.REFUSE);
+            GameCodec.write(reply, new GameMessage.ProposalReply(-1));
+            GameLog.debug(name, "refused CFP from {} due to repeated betrayal.", sender);
+            port.send(reply);
+            metrics.sent(reply.getConversationId(), 1);
+            return;
+        }
+
+        if (state.acceptsProposal(sender, need)) {
+            ACLMessage offer = new ACLMessage(ACLMessage.INFORM);
+            offer.addReceiver(new AID(seat.host, AID.ISLOCALNAME));
+            offer.setConversationId(seat.conversation("trade-offer"));
+            GameCodec.write(offer, new GameMessage.TradeOffer(seat.seat(sender), seat.seat(name), need));
+            port.send(offer);
+            metrics.sent(offer.getConversationId(), 1);
+
+            state.removeToken(need);
+            seat.reserved.put(msg.getConversationId(), need);
+            reply.setPerformative(ACLMessage.PROPOSE);
+            GameCodec.write(reply, new GameMessage.ProposalReply(need));
+            GameLog.debug(name, "bid on CFP from {}, reserved token: {}", sender, GameConfig.colorName(need));
+        } else {
+            reply.setPerformative(ACLMessage.REFUSE);
+            GameCodec.write(reply, new GameMessage.ProposalReply(-1));
+            GameLog.debug(name, "refused CFP from {} (token needed not available).", sender);
+        }
+
+        port.send(reply);
+        metrics.sent(reply.getConversationId(), 1);
+    }
+
+    // Our bid won: the held token goes back into our copy, and the host's delta takes it out
+    // again with the payment, if any, once the proposer's trade reaches it. No payment is a
+    // betrayal, held against the proposer.
+    private void handleAccept(Seat seat, ACLMessage msg) {
+        int need = releaseReservation(seat, msg.getConversationId());
+        GameMessage content = GameCodec.read(msg);
+        int token = content instanceof GameMessage.Payment payment ? payment.token() : -1;
+        GameLog.debug(name, "promised payment: '{}'", GameConfig.colorName(token));
+        String proposer = msg.getSender().getLocalName();
+        seat.beliefs.got(seat.seat(proposer), need);
+        seat.beliefs.gave(seat.seat(proposer), token);
+        if (token < 0) {
+            seat.state.recordBetrayedBy(proposer);
+        } else {
+            seat.state.recordTrade(proposer);
+        }
+    }
+
+    // Order the missing token from the exchange. The payment, unless the strategy means to betray,
+    // is escrowed with the order; the partner is not known yet, the exchange picks it.
+    private void placeOrder(Seat seat, Negotiation n, int need) {
+        PlayerState state = seat.state;
+        boolean honest = seat.strategy.paysHonestly(state, null, n.offer);
+        if (honest && n.offer >= 0 && state.removeToken(n.offer)) n.paid = n.offer;
+
+        ACLMessage order = new ACLMessage(ACLMessage.REQUEST);
+        order.addReceiver(new AID(GameConfig.EXCHANGE_AGENT, AID.ISLOCALNAME));
+        order.setConversationId(seat.conversation("exchange"));
+        order.setReplyWith(n.id);
+        GameCodec.write(order, new GameMessage.Order(seat.seat(name), need, n.offer, n.paid));
+        port.send(order);
+        metrics.sent(order.getConversationId(), 1);
+        metrics.proposals(1);
+    }
+
+    // The exchange's answer to our order. The escrowed payment goes back into our copy, and the
+    // host's delta takes it out again once our trade intent reaches it.
+    private void handleFill(Seat seat, ACLMessage msg, GameMessage.Fill fill) {
+        PlayerState state = seat.state;
+        int self = seat.seat(name);
+        if (fill.partner() == self) {
+            // Our own ask came back: ours again, even if the order was given up meanwhile
+            if (seat.escrow.consume(fill.got())) state.addToken(fill.got());
+        }
+        Negotiation n = seat.negotiation;
+        if (n == null || !n.id.equals(msg.getInReplyTo())) return;
+        seat.negotiation = null;
+        if (n.paid >= 0) state.addToken(n.paid);
+
+        if (fill.partner() == self) {
+            GameLog.debug(name, "took back '{}' from the exchange.", GameConfig.colorName(fill.got()));
+            sendIntent(seat, n.turnMsg, GameMessage.TurnIntent.move(n.direction));
+            return;
+        }
+        if (fill.partner() < 0) {
+            GameLog.debug(name, "no seller on the exchange.");
+            metrics.trade(false, false);
+            sendIntent(seat, n.turnMsg, GameMessage.TurnIntent.pass());
+            return;
+        }
+
+        String other = seat.players.get(fill.partner());
+        boolean betrayed = n.offer >= 0 && fill.paid() < 0;
+        GameLog.debug(name, "bought '{}' from {} for '{}'.", GameConfig.colorName(fill.got()), other, GameConfig.colorName(fill.paid()));
+        if (betrayed) state.recordBetrayal(other);
+        state.recordTrade(other);
+        seat.beliefs.gave(fill.partner(), fill.got());
+        seat.beliefs.got(fill.partner(), fill.paid());
+        metrics.trade(true, betrayed);
+        reportTrade(other);
+        if (seat.journal != null) {
+            seat.journal.accept(self, fill.partner(), fill.got(), fill.paid());
+            if (betrayed) seat.journal.betrayal(self, fill.partner());
+        }
+        sendIntent(seat, n.turnMsg, GameMessage.TurnIntent.trade(fill.partner(), fill.got(), fill.paid()));
+    }
+
+    // One of our asks was sold: the token goes back into our copy until the host's delta hands
+    // it over, and another spare token takes its place on the exchange. A buyer that paid
+    // nothing betrayed us.
+    private void handleSale(Seat seat, GameMessage.Sale sale) {
+        if (!seat.escrow.consume(sale.sold())) return;
+        seat.state.addToken(sale.sold());
+        String buyer = seat.players.get(sale.partner());
+        seat.beliefs.got(sale.partner(), sale.sold());
+        seat.beliefs.gave(sale.partner(), sale.paid());
+        if (sale.paid() < 0) {
+            seat.state.recordBetrayedBy(buyer);
+        } else {
+            seat.state.recordTrade(buyer);
+        }
+        GameLog.debug(name, "sold '{}' to {} for '{}'.", GameConfig.colorName(sale.sold()),
+                buyer, GameConfig.colorName(sale.paid()));
+        postAsks(seat);
+    }
+
+    // Escrow spare tokens at the exchange, up to ASKS_PER_SEAT: copies of our most common color
+    // while we hold more than one, so one of each stays with us
+    private void postAsks(Seat seat) {
+        if (GameConfig.EXCHANGE_AGENT == null || seat.state.isDisqualified()) return;
+        TokenBag tokens = seat.state.getTokens();
+        TokenBag ask = null;
+        while (seat.escrow.size() < ASKS_PER_SEAT) {
+            int color = tokens.mostCommon();
+            if (color < 0 || tokens.count(color) < 2) break;
+            tokens.consume(color);
+            seat.escrow.add(color);
+            if (ask == null) ask = new TokenBag();
+            ask.add(color);
+        }
+        if (ask == null) return;
+
+        ACLMessage msg = new ACLMessage(ACLMessage.PROPOSE);
+        msg.addReceiver(new AID(GameConfig.EXCHANGE_AGENT, AID.ISLOCALNAME));
+        msg.setConversationId(seat.conversation("exchange"));
+        GameCodec.write(msg, new GameMessage.Ask(seat.seat(name), ask));
+        port.send(msg);
+        metrics.sent(msg.getConversationId(), 1);
+    }
+
+    // Tell the placement agent whom we trade with, every REPORT_TRADES trades
+    private void reportTrade(String partner) {
+        if (GameConfig.PLACEMENT_AGENT == null) return;
+        unreported.merge(partner, 1, Integer::sum);
+        if (++unreportedTrades < REPORT_TRADES) return;
+
+        ACLMessage report = new ACLMessage(ACLMessage.INFORM);
+        report.addReceiver(new AID(GameConfig.PLACEMENT_AGENT, AID.ISLOCALNAME));
+        report.setConversationId("trade-report");
+        GameCodec.write(report, new GameMessage.TradeReport(new HashMap<>(unreported)));
+        port.send(report);
+        metrics.sent("trade-report", 1);
+        unreported.clear();
+        unreportedTrades = 0;
+    }
+
+    // Put back the token held for a bid; returns its color, -1 if none was held
+    private int releaseReservation(Seat seat, String conversationId) {
+        Integer token = seat.reserved.remove(conversationId);
+        if (token == null) return -1;
+        seat.state.addToken(token);
+        return token;
+    }
+
+    // Reply to the turn request, so MainAgent can match it to the turn it is waiting on
+    private void sendIntent(Seat seat, ACLMessage turnMsg, GameMessage.TurnIntent intent) {
+        ACLMessage reply = turnMsg.createReply();
+        reply.setPerformative(ACLMessage.INFORM);
+        reply.setConversationId(seat.conversation("turn-intent"));
+        GameCodec.write(reply, intent);
+        port.send(reply);
+        metrics.sent(reply.getConversationId(), 1);
+    }
+}
@@ -0,0 +1,174 @@
+import java.util.*;
+
+// Rule-level state of one player: position, goal, tokens, blocked turns,
+// the betrayals it committed and its trust in the others (a Reputation).
+// Shared by the agents and the headless GameEngine.
+public class PlayerState implements java.io.Serializable {
+
+    // Token value used on the wire when a player has nothing to give
+    public static final String NONE = "NONE";
+
+    private final String name;
+    private final int goalX, goalY;
+    private int x, y;
+    private final TokenBag tokens;
+    private int blockedTurns = 0;
+    private boolean disqualified = false;
+    // Times we betrayed each player, for strategies that model how the others see us
+    private final Map<String, Integer> betrayalCount = new HashMap<>();
+    // What we know of the others: private, or shared with other players (set by the owner)
+    private Reputation reputation;
+
+    public PlayerState(String name, int startX, int startY, int goalX, int goalY, TokenBag tokens) {
+        this.name = name;
+        this.x = startX;
+        this.y = startY;
+        this.goalX = goalX;
+        this.goalY = goalY;
+        this.tokens = tokens;
+    }
+
+    public String getName() { return name; }
+    public int getX() { return x; }
+    public int getY() { return y; }
+    public int getGoalX() { return goalX; }
+    public int getGoalY() { return goalY; }
+    public TokenBag getTokens() { return tokens; }
+
+    public void setX(int x) { this.x = x; }
+    public void setY(int y) { this.y = y; }
+    public void setTokens(List<String> tokens) { this.tokens.setAll(tokens); }
+
+    public boolean isAtGoal() {
+        return x == goalX && y == goalY;
+    }
+
+    public boolean hasToken(int color) {
+        return tokens.has(color);
+    }
+
+    public void addToken(int color) {
+        tokens.add(color);
+    }
+
+    public boolean removeToken(int color) {
+        return tokens.consume(color);
+    }
+
+    // String overloads for ACL-facing code
+    public boolean hasToken(String color) {
+        return tokens.has(GameConfig.colorIndex(color));
+    }
+
+    public void addToken(String color) {
+        int c = GameConfig.colorIndex(color);
+        if (c >= 0) tokens.add(c);
+    }
+
+    public boolean removeToken(String color) {
+        return tokens.consume(GameConfig.colorIndex(color));
+    }
+
+    /**
+     * Move to (nextX, nextY) paying one token of the cell color.
+     * Returns false (and changes nothing) if the token is missing.
+     */
+    public boolean tryMove(int nextX, int nextY, int requiredColor) {
+        if (!tokens.consume(requiredColor)) return false;
+        x = nextX;
+        y = nextY;
+        blockedTurns = 0;
+        return true;
+    }
+
+    public boolean tryMove(int nextX, int nextY, String requiredColor) {
+        return tryMove(nextX, nextY, GameConfig.colorIndex(requiredColor));
+    }
+
+    public int getBlockedTurns() { return blockedTurns; }
+    public void setBlockedTurns(int blockedTurns) { this.blockedTurns = blockedTurns; }
+
+    public void incrementBlockedTurns() {
+        blockedTurns++;
+    }
+
+    public void resetBlockedTurns() {
+        blockedTurns = 0;
+    }
+
+    public boolean isDisqualified() { return disqualified; }
+    public void setDisqualified(boolean disqualified) { this.disqualified = disqualified; }
+
+    public Reputation getReputation() {
+        if (reputation == null) reputation = Reputation.forAgent();
+        return reputation;
+    }
+
+    public void setReputation(Reputation reputation) { this.reputation = reputation; }
+
+    // Times we betrayed the player
+    public int getBetrayalCount(String player) {
+        return betrayalCount.getOrDefault(player, 0);
+    }
+
+    // We betrayed the victim
+    public void recordBetrayal(String victim) {
+        betrayalCount.merge(victim, 1, Integer::sum);
+    }
+
+    // The betrayer took our token and paid nothing
+    public void recordBetrayedBy(String betrayer) {
+        getReputation().recordBetrayal(betrayer);
+    }
+
+    // The partner paid as promised, or handed over the token we paid for
+    public void recordTrade(String partner) {
+        getReputation().recordTrade(partner);
+    }
+
+    // The peer turned our call for proposals down
+    public void recordRefusal(String peer) {
+        getReputation().recordRefusal(peer);
+    }
+
+    /**
+     * Pick player to propose trade to: the most trusted, the first of them
+     * on ties. A scan, so the list is left as it is.
+     */
+    public String selectPlayerToTrade(List<String> otherPlayers) {
+        return getReputation().mostTrusted(otherPlayers);
+    }
+
+    /**
+     * Offer the token we hold the most copies of, or -1 if empty.
+     */
+    public int selectOfferColor() {
+        return tokens.mostCommon();
+    }
+
+    public String selectOfferToken() {
+        int offer = tokens.mostCommon();
+        return offer < 0 ? NONE : GameConfig.AVAILABLE_TOKENS[offer];
+    }
+
+    /**
+     * A proposal is accepted only if we hold the needed token and the sender
+     * has not betrayed us too often (as far as our reputation table knows).
+     */
+    public boolean acceptsProposal(String sender, int need) {
+        return !isRepeatBetrayer(sender) && tokens.has(need);
+    }
+
+    public boolean acceptsProposal(String sender, String need) {
+        return acceptsProposal(sender, GameConfig.colorIndex(need));
+    }
+
+    public boolean isRepeatBetrayer(String sender) {
+        return getReputation().refuses(sender);
+    }
+
+    @Override
+    public String toString() {
+        return name + "(" + x + "," + y + ")->(" + goalX + "," + goalY + ") " + tokens;
+    }
+}
@@ -0,0 +1,30 @@
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+// Trade decisions of a player: what to offer for a missing token, which
+// bidder to trade with, and whether to actually pay once the partner has
+// handed its token over. GameEngine and PlayerAgent ask the strategy at the
+// same points, so a strategy plays the same in batch runs and under JADE.
+// Select one with -Dgame.strategy=heuristic|search.
+public interface PlayerStrategy {
+
+    // Color to offer for the missing one, or -1 to offer nothing
+    int offerColor(PlayerState self, int need, List<String> peers);
+
+    // One of the candidates (non-empty) to trade with
+    String choosePartner(PlayerState self, List<String> candidates);
+
+    // Pay the offered token (true) or betray (false)
+    boolean paysHonestly(PlayerState self, String partner, int offer);
+
+    static PlayerStrategy fromConfig(RandomGenerator rand) {
+        switch (GameConfig.STRATEGY) {
+            case "heuristic":
+                return new HeuristicStrategy(rand);
+            case "search":
+                return new SearchStrategy(GameConfig.SEARCH_BUDGET_US);
+            default:
+                throw new IllegalArgumentException("Unknown strategy " + GameConfig.STRATEGY);
+        }
+    }
+}
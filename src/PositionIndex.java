@@ -0,0 +1,179 @@
+import java.util.Arrays;
+
+// Spatial index of player positions: which players stand on a given cell.
+// Only occupied cells are stored (open-addressing hash from cell index to
+// the first player there, with an intrusive linked list through the players
+// on the same cell), so memory grows with the number of players, not with
+// the board area. place/remove/first are O(1) and allocation-free once
+// sized. Player ids are small non-negative ints (index in the player list).
+public class PositionIndex {
+
+    private static final int EMPTY = -1;
+
+    // Cell -> first player on that cell
+    private int[] keys;
+    private int[] heads;
+    private int mask;
+    private int used;
+
+    // Per player: current cell and neighbours on the same cell
+    private int[] cellOf;
+    private int[] next;
+    private int[] prev;
+
+    public PositionIndex(int expectedPlayers) {
+        int capacity = Integer.highestOneBit(Math.max(8, expectedPlayers) * 2 - 1) << 1;
+        keys = new int[capacity];
+        heads = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+        cellOf = new int[0];
+        next = new int[0];
+        prev = new int[0];
+        ensurePlayer(Math.max(0, expectedPlayers - 1));
+    }
+
+    // Put a player on a cell, moving it if it was elsewhere
+    public void place(int player, int cell) {
+        ensurePlayer(player);
+        if (cellOf[player] == cell) return;
+        if (cellOf[player] != EMPTY) unlink(player);
+        link(player, cell);
+    }
+
+    public void remove(int player) {
+        if (player < cellOf.length && cellOf[player] != EMPTY) unlink(player);
+    }
+
+    // Cell of a player, or -1 if not placed
+    public int cellOf(int player) {
+        return player < cellOf.length ? cellOf[player] : EMPTY;
+    }
+
+    public boolean isOccupied(int cell) {
+        return find(cell) >= 0;
+    }
+
+    // First player on a cell, or -1; iterate with next(player)
+    public int first(int cell) {
+        int slot = find(cell);
+        return slot < 0 ? EMPTY : heads[slot];
+    }
+
+    // Next player on the same cell, or -1
+    public int next(int player) {
+        return next[player];
+    }
+
+    public int count(int cell) {
+        int n = 0;
+        for (int p = first(cell); p != EMPTY; p = next[p]) n++;
+        return n;
+    }
+
+    // Number of occupied cells
+    public int occupiedCells() {
+        return used;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(cellOf, EMPTY);
+        Arrays.fill(next, EMPTY);
+        Arrays.fill(prev, EMPTY);
+        used = 0;
+    }
+
+    private void link(int player, int cell) {
+        int slot = find(cell);
+        if (slot < 0) {
+            slot = insert(cell);
+            next[player] = EMPTY;
+        } else {
+            int head = heads[slot];
+            next[player] = head;
+            prev[head] = player;
+        }
+        prev[player] = EMPTY;
+        heads[slot] = player;
+        cellOf[player] = cell;
+    }
+
+    private void unlink(int player) {
+        int n = next[player];
+        int p = prev[player];
+        if (p != EMPTY) {
+            next[p] = n;
+        } else {
+            int slot = find(cellOf[player]);
+            if (n == EMPTY) deleteSlot(slot);
+            else heads[slot] = n;
+        }
+        if (n != EMPTY) prev[n] = p;
+        cellOf[player] = next[player] = prev[player] = EMPTY;
+    }
+
+    private int find(int cell) {
+        for (int i = hash(cell) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+            if (keys[i] == cell) return i;
+        }
+        return -1;
+    }
+
+    private int insert(int cell) {
+        if ((used + 1) * 2 > keys.length) rehash(keys.length * 2);
+        int i = hash(cell) & mask;
+        while (keys[i] != EMPTY) i = (i + 1) & mask;
+        keys[i] = cell;
+        used++;
+        return i;
+    }
+
+    // Backward-shift deletion keeps probe chains intact without tombstones
+    private void deleteSlot(int i) {
+        keys[i] = EMPTY;
+        used--;
+        for (int j = (i + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+            int home = hash(keys[j]) & mask;
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                keys[i] = keys[j];
+                heads[i] = heads[j];
+                keys[j] = EMPTY;
+                i = j;
+            }
+        }
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldHeads = heads;
+        keys = new int[capacity];
+        heads = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY) continue;
+            int j = hash(oldKeys[i]) & mask;
+            while (keys[j] != EMPTY) j = (j + 1) & mask;
+            keys[j] = oldKeys[i];
+            heads[j] = oldHeads[i];
+        }
+    }
+
+    private void ensurePlayer(int player) {
+        if (player < cellOf.length) return;
+        int size = Math.max(player + 1, cellOf.length * 2);
+        int from = cellOf.length;
+        cellOf = Arrays.copyOf(cellOf, size);
+        next = Arrays.copyOf(next, size);
+        prev = Arrays.copyOf(prev, size);
+        Arrays.fill(cellOf, from, size, EMPTY);
+        Arrays.fill(next, from, size, EMPTY);
+        Arrays.fill(prev, from, size, EMPTY);
+    }
+
+    private static int hash(int cell) {
+        int h = cell * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
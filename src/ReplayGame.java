@@ -0,0 +1,37 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+
+// Shows a recorded game in the GUI without running the engine or any agent:
+// GameReplay jumps to the start turn and the cursor publishes one snapshot
+// per turn, paced like WatchGame. Usage:
+// java -cp src ReplayGame <journal dir> [game] [start turn]
+public class ReplayGame {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.out.println("Usage: ReplayGame <journal dir> [game] [start turn]");
+            return;
+        }
+        int game = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+        int turn = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+
+        GameReplay replay = new GameReplay(Paths.get(args[0]));
+        System.out.println("Journal: " + replay.games() + " games, " + replay.records() + " records");
+
+        GameReplay.Cursor cursor = replay.seek(game, turn);
+        SnapshotExchange snapshots = new SnapshotExchange();
+        TurnPacer pacer = new TurnPacer(GameConfig.TURN_DELAY_MS);
+        snapshots.publish(cursor.getTurn(), cursor.getPlayers());
+        new GameGUI(cursor.getBoard(), snapshots, pacer);
+
+        while (cursor.next()) {
+            snapshots.publish(cursor.getTurn(), cursor.getPlayers());
+            pacer.pace();
+        }
+
+        int winner = cursor.getWinner();
+        System.out.println(winner >= 0
+                ? "🏁 " + cursor.getPlayers().get(winner).getName() + " reached the goal after " + cursor.getTurn() + " turns"
+                : ">>> No winner after " + cursor.getTurn() + " turns");
+    }
+}
@@ -0,0 +1,273 @@
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+// Trust in other players, built from how trades with them went: honest
+// trades raise it, betrayals and refused calls lower it. Scores decay with a
+// half-life on the owner's clock (turns in GameEngine, milliseconds for the
+// agents), so old grudges fade and a player that mends its ways gets trades
+// again.
+//
+// A table is private to one player, or shared (GameConfig.SHARED_REPUTATION):
+// every player of the JVM (of the game, in GameEngine) publishes into the
+// same one, so a player learns about betrayals it never suffered itself.
+//
+// Scores are stored scaled by 2^((t - base) / halfLife), so a record touches
+// one entry and decay never rewrites the table: the current value is the
+// stored one times 2^-((now - base) / halfLife), and scaling every score alike
+// keeps their order. Once the scale gets large the table is rebased, under a
+// write lock; records share the lock, and otherwise only contend on their
+// ConcurrentHashMap bin. Entries are immutable, and an index ordered by trust
+// (a skip list) gives the most trusted players without sorting anyone; it is
+// built on the first topTrusted(), so tables never asked for it (GameEngine's)
+// do not keep it up.
+public class Reputation implements Serializable {
+
+    // Betrayal score at which a player is refused: more than one betrayal's worth, so two
+    // in quick succession, as long as decay leaves them above it (two without decay)
+    public static final int MAX_BETRAYALS = 2;
+
+    // Trust is honest trades, less this much per betrayal and per refused call
+    private static final double BETRAYAL_WEIGHT = 4;
+    private static final double REFUSAL_WEIGHT = 0.5;
+
+    // Rebase when the scale passes 2^REBASE_HALF_LIVES; entries decayed below FORGET are dropped then
+    private static final double REBASE_HALF_LIVES = 64;
+    private static final double FORGET = 1e-3;
+
+    // One player's scores, scaled; ordered by trust, most trusted first, then by name
+    private static final class Entry implements Comparable<Entry>, Serializable {
+        final String name;
+        final double trades, betrayals, refusals, trust;
+
+        Entry(String name, double trades, double betrayals, double refusals) {
+            this.name = name;
+            this.trades = trades;
+            this.betrayals = betrayals;
+            this.refusals = refusals;
+            this.trust = trades - BETRAYAL_WEIGHT * betrayals - REFUSAL_WEIGHT * refusals;
+        }
+
+        Entry scaled(double factor) {
+            return new Entry(name, trades * factor, betrayals * factor, refusals * factor);
+        }
+
+        @Override
+        public int compareTo(Entry o) {
+            int c = Double.compare(o.trust, trust);
+            return c != 0 ? c : name.compareTo(o.name);
+        }
+    }
+
+    // Created on first use, so private-reputation runs do not keep it
+    private static final class Shared {
+        static final Reputation TABLE = new Reputation(GameConfig.REPUTATION_HALF_LIFE_MS, System::currentTimeMillis, true);
+    }
+
+    // Half-life in clock units; 0 or less keeps scores forever
+    private final double halfLife;
+    private final boolean shared;
+    private transient LongSupplier clock;
+    private transient StampedLock lock = new StampedLock();
+    private volatile long base;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private transient volatile ConcurrentSkipListSet<Entry> index;
+
+    public Reputation(double halfLife, LongSupplier clock) {
+        this(halfLife, clock, false);
+    }
+
+    private Reputation(double halfLife, LongSupplier clock, boolean shared) {
+        this.halfLife = halfLife;
+        this.clock = clock;
+        this.shared = shared;
+        this.base = clock.getAsLong();
+    }
+
+    // The JVM-wide table, on the wall clock
+    public static Reputation shared() {
+        return Shared.TABLE;
+    }
+
+    // A player agent's table: the shared one, or a fresh private one on the wall clock
+    public static Reputation forAgent() {
+        if (GameConfig.SHARED_REPUTATION) return shared();
+        return new Reputation(GameConfig.REPUTATION_HALF_LIFE_MS, System::currentTimeMillis);
+    }
+
+    // ---- records ----
+
+    // The player took a token and paid as promised
+    public void recordTrade(String player) {
+        record(player, 1, 0, 0);
+    }
+
+    // The player took a token and paid nothing
+    public void recordBetrayal(String player) {
+        record(player, 0, 1, 0);
+    }
+
+    // The player refused a call for proposals
+    public void recordRefusal(String player) {
+        record(player, 0, 0, 1);
+    }
+
+    private void record(String player, double trades, double betrayals, double refusals) {
+        long now = clock.getAsLong();
+        if (halfLife > 0 && (now - base) > REBASE_HALF_LIVES * halfLife) rebase(now);
+        long stamp = lock.readLock();
+        try {
+            double scale = scale(now);
+            ConcurrentSkipListSet<Entry> index = this.index;
+            entries.compute(player, (name, old) -> {
+                Entry e = old == null
+                        ? new Entry(name, trades * scale, betrayals * scale, refusals * scale)
+                        : new Entry(name, old.trades + trades * scale, old.betrayals + betrayals * scale, old.refusals + refusals * scale);
+                if (index != null) {
+                    if (old != null) index.remove(old);
+                    index.add(e);
+                }
+                return e;
+            });
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Scale every entry back to now, forgetting what has decayed to nothing
+    private void rebase(long now) {
+        long stamp = lock.writeLock();
+        try {
+            if ((now - base) <= REBASE_HALF_LIVES * halfLife) return;
+            double factor = 1 / scale(now);
+            entries.replaceAll((name, e) -> e.scaled(factor));
+            entries.values().removeIf(e -> e.trades < FORGET && e.betrayals < FORGET && e.refusals < FORGET);
+            if (index != null) index = new ConcurrentSkipListSet<>(entries.values());
+            base = now;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private double scale(long now) {
+        return halfLife > 0 ? Math.pow(2, (now - base) / halfLife) : 1;
+    }
+
+    // ---- queries ----
+
+    // Decayed betrayals of the player
+    public double betrayals(String player) {
+        return read(player, e -> e.betrayals);
+    }
+
+    // Decayed trust in the player: 0 for one we know nothing about
+    public double trust(String player) {
+        return read(player, e -> e.trust);
+    }
+
+    // The player betrayed too often (and too recently) to trade with
+    public boolean refuses(String player) {
+        return betrayals(player) > MAX_BETRAYALS - 1;
+    }
+
+    // A score of the player now; read again under the lock if a rebase ran meanwhile
+    private double read(String player, ToDoubleFunction<Entry> score) {
+        long stamp = lock.tryOptimisticRead();
+        double value = valueNow(player, score);
+        if (lock.validate(stamp)) return value;
+        stamp = lock.readLock();
+        try {
+            return valueNow(player, score);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private double valueNow(String player, ToDoubleFunction<Entry> score) {
+        Entry e = entries.get(player);
+        return e == null ? 0 : score.applyAsDouble(e) / scale(clock.getAsLong());
+    }
+
+    /**
+     * The most trusted of the candidates (non-empty), the first of them on
+     * ties. One lookup per candidate; scores are compared scaled, so no
+     * decay is computed.
+     */
+    public String mostTrusted(List<String> candidates) {
+        return candidates.get(mostTrustedIndex(candidates));
+    }
+
+    // Position of mostTrusted(candidates) in the list
+    public int mostTrustedIndex(List<String> candidates) {
+        int best = 0;
+        double bestTrust = storedTrust(candidates.get(0));
+        for (int i = 1; i < candidates.size(); i++) {
+            double t = storedTrust(candidates.get(i));
+            if (t > bestTrust) {
+                best = i;
+                bestTrust = t;
+            }
+        }
+        return best;
+    }
+
+    private double storedTrust(String player) {
+        Entry e = entries.get(player);
+        return e == null ? 0 : e.trust;
+    }
+
+    /**
+     * Add to out, most trusted first, up to k players with positive trust
+     * that pass the filter, looking at no more than maxScan of them; returns
+     * how many were added. Walks the trust index from the top, so it costs
+     * O(log n) plus the players looked at.
+     */
+    public int topTrusted(int k, int maxScan, Predicate<String> among, List<String> out) {
+        int added = 0, scanned = 0;
+        for (Entry e : index()) {
+            if (added == k || scanned++ == maxScan || e.trust <= 0) break;
+            if (among.test(e.name)) {
+                out.add(e.name);
+                added++;
+            }
+        }
+        return added;
+    }
+
+    // The trust index, built from the entries on first use; records wait meanwhile
+    private ConcurrentSkipListSet<Entry> index() {
+        ConcurrentSkipListSet<Entry> index = this.index;
+        if (index != null) return index;
+        long stamp = lock.writeLock();
+        try {
+            if (this.index == null) this.index = new ConcurrentSkipListSet<>(entries.values());
+            return this.index;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Players with a record
+    public int size() {
+        return entries.size();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        lock = new StampedLock();
+        clock = System::currentTimeMillis;
+    }
+
+    // A player moved to another JVM publishes into that JVM's shared table
+    private Object readResolve() {
+        return shared ? shared() : this;
+    }
+}
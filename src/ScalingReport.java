@@ -0,0 +1,70 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Turns per second and turn latency against the number of player containers,
+// with a static and a locality-aware placement, on this host. Each run is a
+// fresh StartJADE cluster JVM (same classpath and game.* properties); the
+// RESULT lines become a markdown table.
+// ScalingReport [max containers] [games] [sessions per host] [hosts] [player pool] [master seed]
+public class ScalingReport {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int maxContainers = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        String games = args.length > 1 ? args[1] : "20000";
+        String concurrent = args.length > 2 ? args[2] : "500";
+        String hosts = args.length > 3 ? args[3] : "2";
+        String pool = args.length > 4 ? args[4] : "64";
+        String seed = args.length > 5 ? args[5] : "42";
+
+        System.out.println("| containers | placement | turns/s | p50 turn latency (µs) | p99 turn latency (µs) | migrations |");
+        System.out.println("|---:|---|---:|---:|---:|---:|");
+        for (int k = 1; k <= maxContainers; k++) {
+            // Placement only matters with more than one container
+            for (boolean placement : k == 1 ? new boolean[]{false} : new boolean[]{false, true}) {
+                Map<String, String> r = run(placement, "cluster", String.valueOf(k), games, concurrent, hosts, pool, seed);
+                if (r == null) {
+                    System.out.printf("| %d | %s | failed | | | |%n", k, placement ? "locality" : "static");
+                } else {
+                    System.out.printf("| %d | %s | %s | %s | %s | %s |%n", k, placement ? "locality" : "static",
+                            r.get("turnsPerSec"), r.get("p50Us"), r.get("p99Us"), r.get("migrations"));
+                }
+            }
+        }
+    }
+
+    // The RESULT fields of one run, or null if it printed none
+    private static Map<String, String> run(boolean placement, String... args) throws IOException, InterruptedException {
+        List<String> cmd = new ArrayList<>();
+        cmd.add(System.getProperty("java.home") + "/bin/java");
+        cmd.add("-cp");
+        cmd.add(System.getProperty("java.class.path"));
+        for (String key : System.getProperties().stringPropertyNames()) {
+            if (key.startsWith("game.") && !key.equals("game.placementPeriodMs")) cmd.add("-D" + key + "=" + System.getProperty(key));
+        }
+        // 0 turns placement off; otherwise the configured period
+        cmd.add("-Dgame.placementPeriodMs=" + (placement ? GameConfig.PLACEMENT_PERIOD_MS : 0));
+        cmd.add("StartJADE");
+        cmd.addAll(List.of(args));
+
+        Process p = new ProcessBuilder(cmd).redirectErrorStream(true).start();
+        Map<String, String> result = null;
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(p.getInputStream()))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!line.startsWith("RESULT ")) continue;
+                result = new LinkedHashMap<>();
+                for (String field : line.substring(7).split(" ")) {
+                    int eq = field.indexOf('=');
+                    result.put(field.substring(0, eq), field.substring(eq + 1));
+                }
+            }
+        }
+        p.waitFor();
+        return result;
+    }
+}
@@ -0,0 +1,331 @@
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// Lookahead strategy: when blocked, searches the player's next turns
+// (iterative-deepening expectimax) and offers, pays or betrays by the result.
+//
+// The model is the player's own view of the game:
+//   - distance to the goal, held token counts, blocked turns, the color of
+//     the next cell when known;
+//   - trust: how many peers we betrayed never, once, or twice and more
+//     (those refuse to trade with us);
+//   - moves: the next cell costs its color; later cells are chance nodes
+//     with a uniform color;
+//   - trades: each action (pay color c, pay nothing, betray) succeeds with
+//     the chance that one of the willing peers holds the needed color, given
+//     TOKENS_PER_PLAYER random tokens each. Paying costs the token; betraying
+//     keeps it but moves one partner down a trust level. A failed trade at
+//     MAX_BLOCKED_TURNS disqualifies.
+//
+// Trade nodes are Zobrist-hashed (distance, counts, blocked, trust, need)
+// into a TranspositionTable shared by every searching thread; the model is
+// relative, so positions repeat across players and games. The per-turn
+// budget is checked every 64 nodes; the result of the deepest completed
+// iteration is played.
+public class SearchStrategy implements PlayerStrategy {
+
+    private static final int MAX_DEPTH = 32;
+    private static final int TABLE_ENTRIES = 1 << 20;
+
+    private static final float WIN = 1e6f;
+    private static final float LOSS = -1e6f;
+    private static final float TRADE_WEIGHT = 3f;
+    private static final float BLOCKED_WEIGHT = 5f;
+    private static final float DISTRUST_WEIGHT = 20f;
+
+    private static final int NUM_COLORS = GameConfig.NUM_COLORS;
+    private static final int BETRAY = NUM_COLORS;
+    private static final int PAY_NOTHING = NUM_COLORS + 1;
+
+    // State layout: [dist, blocked, trusted, onceBetrayed, need, counts...]
+    private static final int DIST = 0, BLOCKED = 1, TRUSTED = 2, ONCE = 3, NEED = 4, COUNTS = 5;
+    private static final int STATE_SIZE = COUNTS + NUM_COLORS;
+
+    // Zobrist keys; values past the caps share the last key
+    private static final int DIST_CAP = 1023, COUNT_CAP = 63, PEER_CAP = 255;
+
+    // Chance that a call for proposals to n willing peers finds the color, by n:
+    // each peer holds at least one token of it with 1 - (1 - 1/C)^TOKENS_PER_PLAYER
+    private static final float[] SUCCESS = new float[PEER_CAP + 1];
+
+    static {
+        double peerHas = 1 - Math.pow(1 - 1.0 / NUM_COLORS, GameConfig.TOKENS_PER_PLAYER);
+        for (int n = 0; n <= PEER_CAP; n++) SUCCESS[n] = (float) (1 - Math.pow(1 - peerHas, n));
+    }
+    // Drawn in this order from one fixed seed: keys must agree across threads and runs,
+    // and no two may be equal, or distinct states would hash alike
+    private static final SplittableRandom KEY_RAND = new SplittableRandom(0x5EA4C4L);
+    private static final Set<Long> DRAWN = new HashSet<>();
+    private static final long[] DIST_KEYS = keys(DIST_CAP + 1);
+    private static final long[] BLOCKED_KEYS = keys(GameConfig.MAX_BLOCKED_TURNS + 1);
+    private static final long[] TRUSTED_KEYS = keys(PEER_CAP + 1);
+    private static final long[] ONCE_KEYS = keys(PEER_CAP + 1);
+    private static final long[] NEED_KEYS = keys(NUM_COLORS);
+    private static final long[][] COUNT_KEYS = new long[NUM_COLORS][];
+
+    static {
+        for (int c = 0; c < NUM_COLORS; c++) COUNT_KEYS[c] = keys(COUNT_CAP + 1);
+        DRAWN.clear();
+    }
+
+    // Created on first use, so heuristic-only runs do not pay for it
+    private static final class Shared {
+        static final TranspositionTable TABLE = new TranspositionTable(TABLE_ENTRIES);
+    }
+
+    // Totals over every search in the JVM
+    private static final LongAdder SEARCHES = new LongAdder();
+    private static final LongAdder NODES = new LongAdder();
+    private static final LongAdder NANOS = new LongAdder();
+    private static final LongAdder DEPTHS = new LongAdder();
+
+    private final long budgetNanos;
+    private final TranspositionTable table = Shared.TABLE;
+
+    // Current search
+    private long deadline;
+    private long nodes;
+    private boolean aborted;
+    private boolean cutoff;
+    private int rootAction;
+
+    // Decision of the last search, used by paysHonestly, and its statistics: one
+    // instance per player, so no other search runs between its offer and its payment
+    private int decision = -1;
+    private int lastDepth;
+    private long lastNodes;
+    private long lastNanos;
+
+    public SearchStrategy(long budgetMicros) {
+        this.budgetNanos = budgetMicros * 1000;
+    }
+
+    @Override
+    public int offerColor(PlayerState self, int need, List<String> peers) {
+        int[] root = new int[STATE_SIZE];
+        root[DIST] = Math.abs(self.getGoalX() - self.getX()) + Math.abs(self.getGoalY() - self.getY());
+        // The trade node counts this turn as blocked itself
+        root[BLOCKED] = Math.max(0, self.getBlockedTurns() - 1);
+        for (String peer : peers) {
+            int betrayed = self.getBetrayalCount(peer);
+            if (betrayed == 0) root[TRUSTED]++;
+            else if (betrayed == 1) root[ONCE]++;
+        }
+        root[NEED] = need;
+        for (int c = 0; c < NUM_COLORS; c++) root[COUNTS + c] = self.getTokens().count(c);
+
+        decision = search(root);
+        if (decision == BETRAY) return self.selectOfferColor(); // promise it anyway
+        return decision == PAY_NOTHING ? -1 : decision;
+    }
+
+    @Override
+    public String choosePartner(PlayerState self, List<String> candidates) {
+        // The model trades with the most trusted peer first
+        return self.selectPlayerToTrade(candidates);
+    }
+
+    @Override
+    public boolean paysHonestly(PlayerState self, String partner, int offer) {
+        return decision != BETRAY;
+    }
+
+    // Best action at a trade node, by iterative deepening within the budget
+    private int search(int[] root) {
+        long start = System.nanoTime();
+        deadline = start + budgetNanos;
+        nodes = 0;
+        aborted = false;
+
+        int best = -1;
+        int depth = 0;
+        for (int d = 1; d <= MAX_DEPTH; d++) {
+            cutoff = false;
+            rootAction = -1;
+            trade(root, d, true);
+            if (aborted) break;
+            best = rootAction;
+            depth = d;
+            if (!cutoff) break; // the whole tree fits: deeper searches change nothing
+        }
+        if (best < 0) {
+            // Not even depth 1 finished: fall back to paying the most common token
+            int offer = mostCommon(root);
+            best = offer < 0 ? PAY_NOTHING : offer;
+        }
+
+        lastDepth = depth;
+        lastNodes = nodes;
+        lastNanos = System.nanoTime() - start;
+        SEARCHES.increment();
+        NODES.add(nodes);
+        NANOS.add(lastNanos);
+        DEPTHS.add(depth);
+        return best;
+    }
+
+    // Value of a state where it is our turn
+    private float value(int[] s, int depth) {
+        if (s[DIST] == 0) return WIN + depth;
+        if (depth == 0) {
+            cutoff = true;
+            return evaluate(s);
+        }
+        if (tick()) return 0;
+
+        int need = s[NEED];
+        if (need < 0) {
+            // Next cell color unknown: uniform chance
+            float sum = 0;
+            for (int c = 0; c < NUM_COLORS && !aborted; c++) {
+                s[NEED] = c;
+                sum += value(s, depth);
+            }
+            s[NEED] = -1;
+            return sum / NUM_COLORS;
+        }
+        if (s[COUNTS + need] > 0) {
+            int[] child = s.clone();
+            child[COUNTS + need]--;
+            child[DIST]--;
+            child[BLOCKED] = 0;
+            child[NEED] = -1;
+            return value(child, depth - 1);
+        }
+        return trade(s, depth, false);
+    }
+
+    // Blocked on the needed color: pick the trade action with the best expectation
+    private float trade(int[] s, int depth, boolean root) {
+        long key = hash(s);
+        if (!root) {
+            long entry = table.probe(key);
+            if (entry != 0 && TranspositionTable.depth(entry) >= depth) {
+                return TranspositionTable.value(entry);
+            }
+        }
+
+        int blocked = s[BLOCKED] + 1;
+        int willing = s[TRUSTED] + s[ONCE];
+        float success = SUCCESS[Math.min(willing, PEER_CAP)];
+
+        float fail;
+        if (blocked >= GameConfig.MAX_BLOCKED_TURNS) {
+            fail = LOSS;
+        } else {
+            int[] child = s.clone();
+            child[BLOCKED] = blocked;
+            fail = value(child, depth - 1);
+        }
+        if (aborted) return 0;
+
+        float best = Float.NEGATIVE_INFINITY;
+        int bestAction = -1;
+        int need = s[NEED];
+        boolean empty = true;
+        for (int a = 0; a <= PAY_NOTHING && !aborted; a++) {
+            if (a < NUM_COLORS) {
+                if (s[COUNTS + a] == 0) continue;
+                empty = false;
+            } else if (a == BETRAY) {
+                if (willing == 0) continue;
+            } else if (!empty) {
+                continue; // paying nothing honestly only makes sense empty-handed
+            }
+
+            float v = fail;
+            if (willing > 0) {
+                int[] child = s.clone();
+                child[BLOCKED] = blocked;
+                child[COUNTS + need]++;
+                if (a < NUM_COLORS) {
+                    child[COUNTS + a]--;
+                } else if (a == BETRAY) {
+                    if (child[TRUSTED] > 0) {
+                        child[TRUSTED]--;
+                        child[ONCE]++;
+                    } else {
+                        child[ONCE]--;
+                    }
+                }
+                v = success * value(child, depth - 1) + (1 - success) * fail;
+            }
+            if (v > best) {
+                best = v;
+                bestAction = a;
+            }
+        }
+        if (aborted) return 0;
+
+        table.store(key, best, depth, bestAction);
+        if (root) rootAction = bestAction;
+        return best;
+    }
+
+    // Leaf estimate: steps plus expected trades, blocked turns, and trades made harder by distrust
+    private static float evaluate(int[] s) {
+        int dist = s[DIST];
+        // Cells expected to be paid from held tokens, with uniform cell colors
+        float share = (float) dist / NUM_COLORS;
+        float paid = 0;
+        for (int c = 0; c < NUM_COLORS; c++) paid += Math.min(s[COUNTS + c], share);
+        float trades = dist - paid;
+        float success = SUCCESS[Math.min(s[TRUSTED] + s[ONCE], PEER_CAP)];
+        return -(dist + TRADE_WEIGHT * trades + BLOCKED_WEIGHT * s[BLOCKED] + DISTRUST_WEIGHT * trades * (1 - success));
+    }
+
+    // Count a node; true once the budget is spent
+    private boolean tick() {
+        if ((++nodes & 63) == 0 && System.nanoTime() >= deadline) aborted = true;
+        return aborted;
+    }
+
+    // Package-private for the tests
+    static long hash(int[] s) {
+        long h = DIST_KEYS[Math.min(s[DIST], DIST_CAP)]
+                ^ BLOCKED_KEYS[Math.min(s[BLOCKED], GameConfig.MAX_BLOCKED_TURNS)]
+                ^ TRUSTED_KEYS[Math.min(s[TRUSTED], PEER_CAP)]
+                ^ ONCE_KEYS[Math.min(s[ONCE], PEER_CAP)]
+                ^ NEED_KEYS[s[NEED]];
+        for (int c = 0; c < NUM_COLORS; c++) h ^= COUNT_KEYS[c][Math.min(s[COUNTS + c], COUNT_CAP)];
+        return h;
+    }
+
+    private static int mostCommon(int[] s) {
+        int best = -1;
+        for (int c = 0; c < NUM_COLORS; c++) {
+            if (s[COUNTS + c] > 0 && (best < 0 || s[COUNTS + c] > s[COUNTS + best])) best = c;
+        }
+        return best;
+    }
+
+    // The next n keys, each unlike every key drawn before
+    private static long[] keys(int n) {
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = KEY_RAND.nextLong();
+            if (keys[i] == 0 || !DRAWN.add(keys[i])) throw new IllegalStateException("Duplicate Zobrist key " + keys[i]);
+        }
+        return keys;
+    }
+
+    public int getLastDepth() { return lastDepth; }
+    public long getLastNodes() { return lastNodes; }
+
+    public double lastNodesPerSecond() {
+        return lastNanos == 0 ? 0 : lastNodes * 1e9 / lastNanos;
+    }
+
+    // Summary of every search so far in this JVM, for tuning the budget
+    public static String report() {
+        long searches = SEARCHES.sum();
+        if (searches == 0) return "Search: no searches";
+        long nodes = NODES.sum();
+        long nanos = NANOS.sum();
+        return String.format("Search: %d searches, %d nodes, %.0f nodes/s, avg depth %.1f, avg %.1f us/search",
+                searches, nodes, nanos == 0 ? 0 : nodes * 1e9 / nanos, (double) DEPTHS.sum() / searches, nanos / 1e3 / searches);
+    }
+}
@@ -0,0 +1,23 @@
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Lock-free single-slot handoff from the simulation to the renderer: the
+// writer overwrites the slot after every turn and never waits, the reader
+// samples whatever is newest. Intermediate snapshots are simply replaced.
+public class SnapshotExchange {
+
+    private final AtomicReference<GameSnapshot> slot = new AtomicReference<>();
+
+    public void publish(GameSnapshot snapshot) {
+        slot.set(snapshot);
+    }
+
+    // Capture and publish; only valid with a single writer, which extends the trails of its own last snapshot
+    public void publish(int turn, List<PlayerState> players) {
+        slot.set(GameSnapshot.capture(turn, players, slot.get()));
+    }
+
+    public GameSnapshot latest() {
+        return slot.get();
+    }
+}
@@ -0,0 +1,34 @@
+import jade.core.Profile;
+import jade.core.ProfileImpl;
+import jade.core.Runtime;
+import jade.wrapper.AgentContainer;
+import jade.wrapper.StaleProxyException;
+
+// A peripheral container in its own JVM, joined to the main container on this
+// host (started by StartJADE cluster). It starts the players the initial
+// placement gives it, then prints READY.
+// StartContainer <container index> <containers> <players> [main port]
+public class StartContainer {
+
+    public static void main(String[] args) throws StaleProxyException {
+        int index = Integer.parseInt(args[0]);
+        int containers = Integer.parseInt(args[1]);
+        int players = Integer.parseInt(args[2]);
+        int port = args.length > 3 ? Integer.parseInt(args[3]) : 1099;
+        String name = containerName(index);
+
+        Profile p = new ProfileImpl("localhost", port, null);
+        p.setParameter(Profile.CONTAINER_NAME, name);
+        AgentContainer container = Runtime.instance().createAgentContainer(p);
+
+        // Same round robin as PlacementPlanner.initial
+        for (int i = index + 1; i <= players; i += containers) {
+            container.createNewAgent("Player" + i, "PlayerAgent", new Object[]{String.valueOf(i)}).start();
+        }
+        System.out.println("READY " + name);
+    }
+
+    public static String containerName(int index) {
+        return "Players-" + (index + 1);
+    }
+}
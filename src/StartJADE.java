@@ -3,10 +3,24 @@ import jade.core.ProfileImpl;
 import jade.core.Runtime;
 import jade.wrapper.AgentContainer;
 import jade.wrapper.AgentController;
+import jade.wrapper.ControllerException;
 import jade.wrapper.StaleProxyException;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+// Single game with the GUI (no arguments), or a batch of hosted sessions:
+// StartJADE host <games> [sessions per host] [hosts] [player pool] [master seed]
+// or the same batch with the players in peripheral containers, one JVM each:
+// StartJADE cluster <containers> <games> [sessions per host] [hosts] [player pool] [master seed]
 public class StartJADE {
 
+    private static final String PLACEMENT_AGENT = "Placement";
+
     public static void main(String[] args) {
         // Create JADE runtime
         Runtime rt = Runtime.instance();
@@ -19,6 +33,16 @@ public class StartJADE {
         AgentContainer mainContainer = rt.createMainContainer(p);
 
         try {
+            startExchange(mainContainer);
+            if (args.length > 0 && args[0].equals("host")) {
+                startHosts(mainContainer, args);
+                return;
+            }
+            if (args.length > 0 && args[0].equals("cluster")) {
+                runCluster(rt, mainContainer, args);
+                return;
+            }
+
             // Launch main agent (game manager)
             AgentController mainAgent = mainContainer.createNewAgent("MainAgent", "MainAgent", null);
             mainAgent.start();
@@ -29,8 +53,122 @@ public class StartJADE {
                 player.start();
             }
 
-        } catch (StaleProxyException e) {
+        } catch (ControllerException | IOException | InterruptedException e) {
             e.printStackTrace();
         }
     }
+
+    // The token exchange, if the players are set to use one (-Dgame.exchangeAgent=<name>)
+    private static void startExchange(AgentContainer container) throws StaleProxyException {
+        if (GameConfig.EXCHANGE_AGENT != null) {
+            container.createNewAgent(GameConfig.EXCHANGE_AGENT, "ExchangeAgent", null).start();
+        }
+    }
+
+    // One GameHost per pair of cores, sharing a pool of player agents that sit in many sessions at once
+    private static void startHosts(AgentContainer container, String[] args) throws StaleProxyException {
+        int cores = java.lang.Runtime.getRuntime().availableProcessors();
+        long games = args.length > 1 ? Long.parseLong(args[1]) : 10_000;
+        int concurrent = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        int hosts = args.length > 3 ? Integer.parseInt(args[3]) : Math.max(1, cores / 2);
+        int pool = args.length > 4 ? Integer.parseInt(args[4]) : Math.max(GameConfig.NUM_PLAYERS, cores);
+        long seed = args.length > 5 ? Long.parseLong(args[5]) : 42;
+
+        // Players first, so the hosts' init messages find them
+        for (int i = 1; i <= pool; i++) {
+            container.createNewAgent("Player" + i, "PlayerAgent", new Object[]{String.valueOf(i)}).start();
+        }
+        for (int h = 0; h < hosts; h++) {
+            Object[] hostArgs = {h, hosts, games, concurrent, pool, seed};
+            container.createNewAgent("GameHost" + (h + 1), "GameHost", hostArgs).start();
+        }
+    }
+
+    // Players in <containers> local JVMs, hosts and the placement agent here. Prints one RESULT
+    // line when every host is done (see ScalingReport), then shuts the containers down.
+    private static void runCluster(Runtime rt, AgentContainer main, String[] args)
+            throws ControllerException, IOException, InterruptedException {
+        int cores = java.lang.Runtime.getRuntime().availableProcessors();
+        int containers = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        long games = args.length > 2 ? Long.parseLong(args[2]) : 10_000;
+        int concurrent = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+        int hosts = args.length > 4 ? Integer.parseInt(args[4]) : Math.max(1, cores / 2);
+        int pool = args.length > 5 ? Integer.parseInt(args[5]) : Math.max(GameConfig.NUM_PLAYERS, cores);
+        long seed = args.length > 6 ? Long.parseLong(args[6]) : 42;
+        boolean placement = GameConfig.PLACEMENT_PERIOD_MS > 0;
+
+        List<Process> children = new ArrayList<>();
+        java.lang.Runtime.getRuntime().addShutdownHook(new Thread(() -> children.forEach(Process::destroy)));
+        CountDownLatch ready = new CountDownLatch(containers);
+        for (int i = 0; i < containers; i++) {
+            children.add(startContainer(i, containers, pool, placement, ready));
+        }
+        ready.await();
+
+        if (placement) {
+            Object[] placementArgs = new Object[containers + 1];
+            placementArgs[0] = pool;
+            for (int i = 0; i < containers; i++) placementArgs[i + 1] = StartContainer.containerName(i);
+            main.createNewAgent(PLACEMENT_AGENT, "PlacementAgent", placementArgs).start();
+        }
+        long start = System.nanoTime();
+        for (int h = 0; h < hosts; h++) {
+            Object[] hostArgs = {h, hosts, games, concurrent, pool, seed};
+            main.createNewAgent("GameHost" + (h + 1), "GameHost", hostArgs).start();
+        }
+
+        // A host deletes itself after its last game
+        for (int h = 1; h <= hosts; h++) {
+            try {
+                while (true) {
+                    main.getAgent("GameHost" + h);
+                    Thread.sleep(200);
+                }
+            } catch (ControllerException gone) {
+                // done
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        GameMetrics m = GameMetrics.get();
+        System.out.printf("RESULT containers=%d placement=%s turns=%d seconds=%.1f turnsPerSec=%.0f p50Us=%d p99Us=%d migrations=%d%n",
+                containers, placement ? "on" : "off", m.getTurns(), seconds, m.getTurns() / seconds,
+                m.getTurnLatencyP50Micros(), m.getTurnLatencyP99Micros(), m.getMessagesSent().getOrDefault("placement", 0L));
+        children.forEach(Process::destroy);
+        rt.shutDown();
+        System.exit(0);
+    }
+
+    // Same classpath and game.* properties as this JVM; echoes the child's output
+    private static Process startContainer(int index, int containers, int pool, boolean placement, CountDownLatch ready)
+            throws IOException {
+        List<String> cmd = new ArrayList<>();
+        cmd.add(System.getProperty("java.home") + "/bin/java");
+        cmd.add("-cp");
+        cmd.add(System.getProperty("java.class.path"));
+        for (String key : System.getProperties().stringPropertyNames()) {
+            if (key.startsWith("game.") && !key.equals("game.placementAgent")) cmd.add("-D" + key + "=" + System.getProperty(key));
+        }
+        if (placement) cmd.add("-Dgame.placementAgent=" + PLACEMENT_AGENT);
+        cmd.add("StartContainer");
+        cmd.add(String.valueOf(index));
+        cmd.add(String.valueOf(containers));
+        cmd.add(String.valueOf(pool));
+
+        Process child = new ProcessBuilder(cmd).redirectErrorStream(true).start();
+        Thread echo = new Thread(() -> {
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(child.getInputStream()))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (line.startsWith("READY")) ready.countDown();
+                    System.out.println("[" + StartContainer.containerName(index) + "] " + line);
+                }
+            } catch (IOException e) {
+                // the child is gone
+            }
+        }, "container-" + (index + 1));
+        echo.setDaemon(true);
+        echo.start();
+        return child;
+    }
 }
@@ -0,0 +1,53 @@
+// Hosted games on LiteRuntime instead of JADE: the same HostLogic and
+// PlayerLogic, but every agent is a mailbox on a few carrier threads, so one
+// JVM holds tens of thousands of players. By default every player sits in
+// about one game at a time.
+// Usage: java -cp src StartLite [games] [players] [hosts] [sessions per host] [master seed] [carrier threads]
+public class StartLite {
+
+    public static void main(String[] args) throws InterruptedException {
+        int cores = Runtime.getRuntime().availableProcessors();
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 100_000;
+        int players = args.length > 1 ? Integer.parseInt(args[1]) : 50_000;
+        int hosts = args.length > 2 ? Integer.parseInt(args[2]) : cores;
+        int concurrent = args.length > 3 ? Integer.parseInt(args[3]) : Math.max(1, players / (GameConfig.NUM_PLAYERS * hosts));
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 42;
+        int carriers = args.length > 5 ? Integer.parseInt(args[5]) : cores;
+
+        LiteRuntime runtime = new LiteRuntime(carriers);
+        long start = System.nanoTime();
+        for (int i = 1; i <= players; i++) {
+            runtime.spawn("Player" + i, new PlayerLogic());
+        }
+        ExchangeLogic exchange = null;
+        if (GameConfig.EXCHANGE_AGENT != null) {
+            // Every player may have an order and a few asks on their way to it
+            exchange = new ExchangeLogic();
+            runtime.spawn(GameConfig.EXCHANGE_AGENT, exchange, Math.max(LiteRuntime.MAILBOX_CAPACITY, 4 * players));
+        }
+        for (int h = 0; h < hosts; h++) {
+            // Every open session may have a turn intent on its way to the host, one per seat in simultaneous mode
+            int inFlight = GameConfig.SIMULTANEOUS_TURNS ? GameConfig.NUM_PLAYERS : 1;
+            runtime.spawn("GameHost" + (h + 1), new HostLogic(new Object[]{h, hosts, games, concurrent, players, seed}),
+                    Math.max(LiteRuntime.MAILBOX_CAPACITY, 2 * concurrent * inFlight));
+        }
+        System.out.println(String.format("%d players, %d hosts x %d sessions on %d carrier threads",
+                players, hosts, concurrent, carriers));
+
+        for (int h = 0; h < hosts; h++) {
+            runtime.join("GameHost" + (h + 1));
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        GameMetrics metrics = GameMetrics.get();
+        System.out.println(String.format("%d games in %.1f s: %.0f turns/s, turn latency p50 %d us p99 %d us",
+                games, seconds, metrics.getTurns() / seconds, metrics.getTurnLatencyP50Micros(), metrics.getTurnLatencyP99Micros()));
+        System.out.println(String.format("%d messages delivered, %d dropped, %d over mailbox capacity (max depth %d)",
+                runtime.getDelivered(), runtime.getDropped(), runtime.getOverCapacity(), metrics.getMailboxMaxDepth()));
+        if (exchange != null) {
+            System.out.println(String.format("exchange: %d orders, %d filled, %d unpaid, %d refused",
+                    exchange.getOrders(), exchange.getFills(), exchange.getBetrayals(), exchange.getRefused()));
+        }
+        GameLog.flush();
+        runtime.shutdown();
+    }
+}
@@ -0,0 +1,98 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Token inventory as a count per color ordinal: has/consume/add are O(1)
+// and never allocate. String conversion is only for ACL content and logs.
+public class TokenBag implements java.io.Serializable {
+
+    private final int[] counts = new int[GameConfig.NUM_COLORS];
+    private int size = 0;
+
+    public TokenBag() {
+    }
+
+    public static TokenBag of(List<String> colors) {
+        TokenBag bag = new TokenBag();
+        bag.setAll(colors);
+        return bag;
+    }
+
+    public boolean has(int color) {
+        return color >= 0 && counts[color] > 0;
+    }
+
+    public boolean consume(int color) {
+        if (!has(color)) return false;
+        counts[color]--;
+        size--;
+        return true;
+    }
+
+    public void add(int color) {
+        counts[color]++;
+        size++;
+    }
+
+    public void add(int color, int n) {
+        counts[color] += n;
+        size += n;
+    }
+
+    public int count(int color) {
+        return counts[color];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Color we hold the most copies of (lowest ordinal on ties), or -1 if empty
+    public int mostCommon() {
+        int best = -1;
+        int bestCount = 0;
+        for (int c = 0; c < counts.length; c++) {
+            if (counts[c] > bestCount) {
+                bestCount = counts[c];
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    public void clear() {
+        Arrays.fill(counts, 0);
+        size = 0;
+    }
+
+    public void copyFrom(TokenBag other) {
+        System.arraycopy(other.counts, 0, counts, 0, counts.length);
+        size = other.size;
+    }
+
+    // Replace the contents with the given color names (unknown names are ignored)
+    public void setAll(List<String> colors) {
+        clear();
+        for (String name : colors) {
+            int c = GameConfig.colorIndex(name);
+            if (c >= 0) add(c);
+        }
+    }
+
+    public List<String> toList() {
+        List<String> list = new ArrayList<>(size);
+        for (int c = 0; c < counts.length; c++) {
+            for (int i = 0; i < counts[c]; i++) list.add(GameConfig.AVAILABLE_TOKENS[c]);
+        }
+        return list;
+    }
+
+    @Override
+    public String toString() {
+        return toList().toString();
+    }
+}
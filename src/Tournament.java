@@ -0,0 +1,122 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Batch mode: plays many independent headless games in parallel on a
+// work-stealing ForkJoinPool. Game i is seeded from (masterSeed, i) only, so
+// a run is reproducible regardless of thread count or scheduling. Each leaf
+// task fills its own Stats and the results are merged on the way back up the
+// fork/join tree, so no lock or shared counter is touched while playing.
+// Usage: java -cp src Tournament [games] [masterSeed] [threads]
+public class Tournament {
+
+    // Games played sequentially by one leaf task before it stops splitting
+    private static final int LEAF_GAMES = 2048;
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    // Aggregated results of a range of games
+    public static class Stats {
+        public final long[] wins = new long[GameConfig.NUM_PLAYERS];
+        public long games, draws, stalled, turns, trades, betrayals;
+        public int maxTurns;
+        // Order-independent digest of every game outcome, to check reproducibility
+        public long fingerprint;
+
+        void record(GameEngine engine, long seed) {
+            games++;
+            int w = engine.getWinnerIndex();
+            if (w >= 0) wins[w]++;
+            else draws++;
+            if (engine.isStalled()) stalled++;
+            turns += engine.getTurnCount();
+            trades += engine.getTrades();
+            betrayals += engine.getBetrayals();
+            maxTurns = Math.max(maxTurns, engine.getTurnCount());
+            fingerprint += mix64(seed ^ ((long) engine.getTurnCount() << 32 | (w + 1)));
+        }
+
+        Stats merge(Stats o) {
+            for (int i = 0; i < wins.length; i++) wins[i] += o.wins[i];
+            games += o.games;
+            draws += o.draws;
+            stalled += o.stalled;
+            turns += o.turns;
+            trades += o.trades;
+            betrayals += o.betrayals;
+            maxTurns = Math.max(maxTurns, o.maxTurns);
+            fingerprint += o.fingerprint;
+            return this;
+        }
+    }
+
+    private static class GameRange extends RecursiveTask<Stats> {
+        private final long masterSeed;
+        private final long from, to;
+
+        GameRange(long masterSeed, long from, long to) {
+            this.masterSeed = masterSeed;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Stats compute() {
+            if (to - from <= LEAF_GAMES) {
+                Stats stats = new Stats();
+                for (long i = from; i < to; i++) {
+                    long seed = seedFor(masterSeed, i);
+                    GameEngine engine = new GameEngine(new SplittableRandom(seed));
+                    engine.setup(GameConfig.NUM_PLAYERS);
+                    engine.run();
+                    stats.record(engine, seed);
+                }
+                return stats;
+            }
+            long mid = (from + to) >>> 1;
+            GameRange left = new GameRange(masterSeed, from, mid);
+            left.fork();
+            Stats right = new GameRange(masterSeed, mid, to).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    // Seed of game i, independent of how the range was split
+    public static long seedFor(long masterSeed, long gameIndex) {
+        return mix64(masterSeed + gameIndex * GOLDEN_GAMMA);
+    }
+
+    // Stafford variant 13 of the MurmurHash3 finalizer (same mixer as SplittableRandom)
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    public static Stats run(long games, long masterSeed, ForkJoinPool pool) {
+        return pool.invoke(new GameRange(masterSeed, 0, games));
+    }
+
+    public static void main(String[] args) {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000L;
+        long masterSeed = args.length > 1 ? Long.parseLong(args[1]) : 42L;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        Stats stats = run(games, masterSeed, pool);
+        long elapsed = System.nanoTime() - start;
+        pool.shutdown();
+
+        System.out.println(String.format("Played %d games on %d threads in %.1f ms (%.0f games/s)",
+                stats.games, threads, elapsed / 1e6, stats.games / (elapsed / 1e9)));
+        for (int i = 0; i < stats.wins.length; i++) {
+            System.out.println(String.format("  Player%d wins: %d (%.2f%%)", i + 1, stats.wins[i], 100.0 * stats.wins[i] / stats.games));
+        }
+        System.out.println(String.format("  Draws: %d (%d called early), avg turns: %.2f, max turns: %d, trades: %d, betrayals: %d",
+                stats.draws, stats.stalled, (double) stats.turns / stats.games, stats.maxTurns, stats.trades, stats.betrayals));
+        System.out.println(String.format("  Master seed %d, fingerprint %016x", masterSeed, stats.fingerprint));
+        // Searches stop on a time budget, so search runs are not reproducible from the seed
+        if (GameConfig.STRATEGY.equals("search")) System.out.println("  " + SearchStrategy.report());
+    }
+}
@@ -0,0 +1,51 @@
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+// Who trades with whom: a symmetric weight per pair of agents, built from the
+// players' trade reports. Each agent only keeps its own partners, so the graph
+// stays as sparse as the trading. decay() ages old weights, so the placement
+// follows the pattern as it changes instead of the whole history.
+public class TradeGraph {
+
+    // Weights below this are forgotten on decay
+    private static final double MIN_WEIGHT = 0.01;
+
+    private final Map<String, Map<String, Double>> edges = new HashMap<>();
+
+    public void record(String a, String b, double trades) {
+        if (a.equals(b) || trades <= 0) return;
+        edges.computeIfAbsent(a, k -> new HashMap<>()).merge(b, trades, Double::sum);
+        edges.computeIfAbsent(b, k -> new HashMap<>()).merge(a, trades, Double::sum);
+    }
+
+    public void decay(double factor) {
+        Iterator<Map<String, Double>> nodes = edges.values().iterator();
+        while (nodes.hasNext()) {
+            Map<String, Double> partners = nodes.next();
+            partners.replaceAll((k, w) -> w * factor);
+            partners.values().removeIf(w -> w < MIN_WEIGHT);
+            if (partners.isEmpty()) nodes.remove();
+        }
+    }
+
+    public Set<String> agents() {
+        return Collections.unmodifiableSet(edges.keySet());
+    }
+
+    public Map<String, Double> partners(String agent) {
+        return edges.getOrDefault(agent, Collections.emptyMap());
+    }
+
+    public double weight(String a, String b) {
+        return partners(a).getOrDefault(b, 0.0);
+    }
+
+    public double totalWeight(String agent) {
+        double total = 0;
+        for (double w : partners(agent).values()) total += w;
+        return total;
+    }
+}
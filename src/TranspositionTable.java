@@ -0,0 +1,62 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Fixed-size, lock-free transposition table for SearchStrategy, shared by
+// every searching thread. Each slot is two longs, (key ^ data, data), written
+// without locking; a reader recomputes key ^ data and rejects the entry if
+// another thread tore it with a concurrent write. Slots are always
+// replaced: the newest search of a position wins.
+//
+// data layout: value (float bits, low 32) | depth (8) | best action (8)
+public class TranspositionTable {
+
+    public static final int NO_ACTION = 0xFF;
+
+    private final AtomicLongArray slots;
+    private final int mask;
+
+    // Capacity is rounded up to a power of two
+    public TranspositionTable(int entries) {
+        int capacity = Integer.highestOneBit(Math.max(2, entries) - 1) << 1;
+        slots = new AtomicLongArray(capacity * 2);
+        mask = capacity - 1;
+    }
+
+    // Stored data for the key, or 0 when absent (0 is never a valid entry: depth >= 1)
+    public long probe(long key) {
+        int i = (int) key & mask;
+        long check = slots.getAcquire(2 * i);
+        long data = slots.getPlain(2 * i + 1);
+        return (check ^ data) == key ? data : 0;
+    }
+
+    public void store(long key, float value, int depth, int action) {
+        int i = (int) key & mask;
+        long data = pack(value, depth, action);
+        slots.setPlain(2 * i + 1, data);
+        slots.setRelease(2 * i, key ^ data);
+    }
+
+    public void clear() {
+        for (int i = 0; i < slots.length(); i++) slots.setPlain(i, 0);
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    public static long pack(float value, int depth, int action) {
+        return (Float.floatToRawIntBits(value) & 0xFFFFFFFFL) | (long) (depth & 0xFF) << 32 | (long) (action & 0xFF) << 40;
+    }
+
+    public static float value(long data) {
+        return Float.intBitsToFloat((int) data);
+    }
+
+    public static int depth(long data) {
+        return (int) (data >>> 32) & 0xFF;
+    }
+
+    public static int action(long data) {
+        return (int) (data >>> 40) & 0xFF;
+    }
+}
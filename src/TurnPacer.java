@@ -0,0 +1,29 @@
+// Playback speed of a game: how long the driver waits between turns.
+// A delay of 0 runs flat out. The GUI speed control and the command line
+// (-Dgame.turnDelayMs=...) both just set the delay; the engine never sees it.
+public class TurnPacer {
+
+    private volatile long delayMillis;
+
+    public TurnPacer(long delayMillis) {
+        this.delayMillis = delayMillis;
+    }
+
+    public long getDelayMillis() {
+        return delayMillis;
+    }
+
+    public void setDelayMillis(long delayMillis) {
+        this.delayMillis = Math.max(0, delayMillis);
+    }
+
+    // Turns per second, or <= 0 for flat out
+    public void setTurnsPerSecond(double turnsPerSecond) {
+        setDelayMillis(turnsPerSecond <= 0 ? 0 : Math.round(1000 / turnsPerSecond));
+    }
+
+    public void pace() throws InterruptedException {
+        long d = delayMillis;
+        if (d > 0) Thread.sleep(d);
+    }
+}
@@ -0,0 +1,379 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Gym-style environment over the game rules for training strategies:
+// reset(seed) / step(actions), vectorized over N games. One step plays one
+// turn in every game, for the player whose turn it is (self-play: every seat
+// is the same learner). All state is in struct-of-arrays primitive buffers
+// allocated once; observations, rewards and done flags go into arrays the
+// caller owns, so stepping allocates nothing. Games are split in chunks over
+// a ForkJoinPool, each chunk touching only its own slices.
+//
+// The rules are GameEngine's: a move costs a token of the cell color; a
+// player without it is blocked and asks the peer that betrayed it least for
+// the token, then pays or betrays; the peer refuses a player that betrayed it
+// twice; after MAX_BLOCKED_TURNS with no trade it is out. The differences are
+// that the action picks the axis of the step towards the goal instead of the
+// planned path, and the trade, and that betrayals are plain counts: no
+// Reputation decay, honest trades or refusals.
+//
+// Action = axis * tradeChoices() + trade, with axis AXIS_X or AXIS_Y (the
+// other one when already aligned) and trade a color to pay with, BETRAY
+// (take the token, pay nothing) or PASS (no trade); see action().
+//
+// Observation of the player to act, obsSize() floats per game: distance to
+// goal (dx/width, dy/height), blocked turns / MAX_BLOCKED_TURNS, turn /
+// MAX_GAME_TURNS, color of the x step and of the y step (one-hot), token
+// counts, then for each peer in seat order after us: betrayals it committed
+// against us and we against it (halved, 2 means it refuses us), and whether
+// it is out.
+//
+// Reward goes to the player that acted: +1 for reaching the goal, -1 for
+// being put out, 0 otherwise. A finished game is reset at once, with the
+// next seed of its slot, and done is set for that step.
+//
+// Usage: java -cp out VectorEnv [games] [steps] [threads] [seed]
+public class VectorEnv implements AutoCloseable {
+
+    public static final int AXIS_X = 0;
+    public static final int AXIS_Y = 1;
+
+    // Games stepped by one task; below this the fork costs more than it saves
+    private static final int MIN_CHUNK = 1024;
+
+    private final int numEnvs, numPlayers, width, height, numColors, tokensPerPlayer;
+    private final int cellsPerGame, obsSize, numActions;
+
+    // Per game
+    private final byte[] cells;
+    private final long[] rng;
+    private final int[] current;
+    private final int[] turn;
+    private final int[] outCount;
+    // Episodes finished in each slot: the slot's next game is seeded by it
+    private final int[] episodes;
+
+    // Per seat, index game * numPlayers + player
+    private final int[] pos;
+    private final int[] goal;
+    private final int[] blocked;
+    private final boolean[] out;
+    // Index seat * numColors + color
+    private final int[] tokens;
+    // Index seat * numPlayers + peer: times the peer betrayed the player, kept by the victim as in PlayerState
+    private final byte[] betrayals;
+
+    private long masterSeed;
+
+    // Buffers of the call in progress, read by the chunks
+    private int[] actions;
+    private float[] obs;
+    private float[] rewards;
+    private boolean[] dones;
+    private boolean resetting;
+
+    private final ForkJoinPool pool;
+    private final Chunk[] chunks;
+    private final RecursiveAction all = new RecursiveAction() {
+        @Override
+        protected void compute() {
+            for (Chunk c : chunks) c.reinitialize();
+            invokeAll(chunks);
+        }
+    };
+
+    public VectorEnv(int numEnvs, int threads) {
+        this(numEnvs, GameConfig.NUM_PLAYERS, GameEngine.WIDTH, GameEngine.HEIGHT, GameConfig.TOKENS_PER_PLAYER, threads);
+    }
+
+    public VectorEnv(int numEnvs, int numPlayers, int width, int height, int tokensPerPlayer, int threads) {
+        if (numPlayers < 2 || numPlayers > Byte.MAX_VALUE || numPlayers > width * height) {
+            throw new IllegalArgumentException(numPlayers + " players do not fit on a " + width + "x" + height + " board");
+        }
+        this.numEnvs = numEnvs;
+        this.numPlayers = numPlayers;
+        this.width = width;
+        this.height = height;
+        this.numColors = GameConfig.NUM_COLORS;
+        this.tokensPerPlayer = tokensPerPlayer;
+        cellsPerGame = width * height;
+        obsSize = 4 + 3 * numColors + 3 * (numPlayers - 1);
+        numActions = 2 * tradeChoices();
+
+        cells = new byte[numEnvs * cellsPerGame];
+        rng = new long[numEnvs];
+        current = new int[numEnvs];
+        turn = new int[numEnvs];
+        outCount = new int[numEnvs];
+        episodes = new int[numEnvs];
+        int seats = numEnvs * numPlayers;
+        pos = new int[seats];
+        goal = new int[seats];
+        blocked = new int[seats];
+        out = new boolean[seats];
+        tokens = new int[seats * numColors];
+        betrayals = new byte[seats * numPlayers];
+
+        int n = threads <= 1 ? 1 : Math.max(1, Math.min(threads * 4, numEnvs / MIN_CHUNK));
+        pool = n == 1 ? null : new ForkJoinPool(threads);
+        chunks = new Chunk[n];
+        for (int i = 0; i < n; i++) {
+            chunks[i] = new Chunk((int) ((long) numEnvs * i / n), (int) ((long) numEnvs * (i + 1) / n));
+        }
+    }
+
+    public int numEnvs() { return numEnvs; }
+    public int obsSize() { return obsSize; }
+    public int numActions() { return numActions; }
+
+    // Trade choices per axis: a color to pay with, BETRAY, PASS
+    public int tradeChoices() { return numColors + 2; }
+    public int betray() { return numColors; }
+    public int pass() { return numColors + 1; }
+
+    public int action(int axis, int trade) {
+        return axis * tradeChoices() + trade;
+    }
+
+    // Episodes finished since reset(), over all games
+    public long episodes() {
+        long total = 0;
+        for (int e : episodes) total += e;
+        return total;
+    }
+
+    // Start all games over; game i gets Tournament.seedFor(seed, i). obs: numEnvs * obsSize()
+    public void reset(long seed, float[] obs) {
+        masterSeed = seed;
+        this.obs = obs;
+        resetting = true;
+        run();
+    }
+
+    // One turn in every game. actions: numEnvs; obs: numEnvs * obsSize(); rewards, dones: numEnvs
+    public void step(int[] actions, float[] obs, float[] rewards, boolean[] dones) {
+        this.actions = actions;
+        this.obs = obs;
+        this.rewards = rewards;
+        this.dones = dones;
+        resetting = false;
+        run();
+    }
+
+    private void run() {
+        if (pool == null) {
+            chunks[0].compute();
+        } else {
+            all.reinitialize();
+            pool.invoke(all);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (pool != null) pool.shutdown();
+    }
+
+    private final class Chunk extends RecursiveAction {
+        private final int from, to;
+
+        Chunk(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            for (int g = from; g < to; g++) {
+                if (resetting) {
+                    episodes[g] = 0;
+                    newGame(g);
+                } else {
+                    stepGame(g);
+                }
+                observe(g);
+            }
+        }
+    }
+
+    // ---- rules ----
+
+    private void stepGame(int g) {
+        int action = actions[g];
+        if (action < 0 || action >= numActions) throw new IllegalArgumentException("action " + action + " in game " + g);
+        int p = current[g];
+        int seat = g * numPlayers + p;
+        int trade = action % tradeChoices();
+        turn[g]++;
+
+        int next = nextCell(seat, action / tradeChoices());
+        int color = cells[g * cellsPerGame + next] & 0xFF;
+        float reward = 0;
+        if (tokens[seat * numColors + color] > 0) {
+            tokens[seat * numColors + color]--;
+            pos[seat] = next;
+            blocked[seat] = 0;
+        } else {
+            blocked[seat]++;
+            boolean traded = trade != pass() && trade(g, p, color, trade);
+            if (!traded && blocked[seat] >= GameConfig.MAX_BLOCKED_TURNS) {
+                out[seat] = true;
+                outCount[g]++;
+                reward = -1;
+            }
+        }
+
+        boolean done = false;
+        if (pos[seat] == goal[seat]) {
+            reward = 1;
+            done = true;
+        } else if (outCount[g] == numPlayers || turn[g] >= GameConfig.MAX_GAME_TURNS) {
+            done = true;
+        }
+        rewards[g] = reward;
+        dones[g] = done;
+
+        if (done) {
+            episodes[g]++;
+            newGame(g);
+        } else {
+            do {
+                p = (p + 1) % numPlayers;
+            } while (out[g * numPlayers + p]);
+            current[g] = p;
+        }
+    }
+
+    // Cell one step towards the goal along the chosen axis, or the other one if aligned on it
+    private int nextCell(int seat, int axis) {
+        int x = pos[seat] % width, y = pos[seat] / width;
+        int dx = goal[seat] % width - x, dy = goal[seat] / width - y;
+        if (dx != 0 && (axis == AXIS_X || dy == 0)) return pos[seat] + Integer.signum(dx);
+        return pos[seat] + Integer.signum(dy) * width;
+    }
+
+    // GameEngine.negotiate: the peer that betrayed us least, first seat on ties
+    private boolean trade(int g, int p, int need, int offer) {
+        int seat = g * numPlayers + p;
+        int partner = -1;
+        int fewest = Integer.MAX_VALUE;
+        for (int q = 0; q < numPlayers; q++) {
+            if (q != p && betrayals[seat * numPlayers + q] < fewest) {
+                fewest = betrayals[seat * numPlayers + q];
+                partner = q;
+            }
+        }
+        int other = g * numPlayers + partner;
+        // PlayerState.acceptsProposal
+        if (betrayals[other * numPlayers + p] >= 2 || tokens[other * numColors + need] == 0) return false;
+
+        tokens[other * numColors + need]--;
+        if (offer < numColors && tokens[seat * numColors + offer] > 0) {
+            tokens[seat * numColors + offer]--;
+            tokens[other * numColors + offer]++;
+        } else if (betrayals[other * numPlayers + p] < Byte.MAX_VALUE) {
+            // Betrayed, or offered a token we do not hold
+            betrayals[other * numPlayers + p]++;
+        }
+        tokens[seat * numColors + need]++;
+        return true;
+    }
+
+    // Board and seats as GameEngine.setup deals them, from the slot's next seed
+    private void newGame(int g) {
+        rng[g] = Tournament.seedFor(masterSeed, g + (long) numEnvs * episodes[g]);
+        for (int i = g * cellsPerGame, end = i + cellsPerGame; i < end; i++) {
+            cells[i] = (byte) nextInt(g, numColors);
+        }
+        int first = g * numPlayers;
+        for (int seat = first; seat < first + numPlayers; seat++) {
+            int start;
+            do {
+                start = nextInt(g, cellsPerGame);
+            } while (occupied(first, seat, start));
+            int target;
+            do {
+                target = nextInt(g, cellsPerGame);
+            } while (target == start);
+            pos[seat] = start;
+            goal[seat] = target;
+            blocked[seat] = 0;
+            out[seat] = false;
+            for (int c = 0; c < numColors; c++) tokens[seat * numColors + c] = 0;
+            for (int t = 0; t < tokensPerPlayer; t++) tokens[seat * numColors + nextInt(g, numColors)]++;
+            for (int q = 0; q < numPlayers; q++) betrayals[seat * numPlayers + q] = 0;
+        }
+        current[g] = 0;
+        turn[g] = 0;
+        outCount[g] = 0;
+    }
+
+    private boolean occupied(int first, int seat, int cell) {
+        for (int s = first; s < seat; s++) {
+            if (pos[s] == cell) return true;
+        }
+        return false;
+    }
+
+    // SplitMix64 per game: the slot's whole game follows from its seed
+    private int nextInt(int g, int bound) {
+        long z = Tournament.mix64(rng[g] += 0x9e3779b97f4a7c15L);
+        return (int) (((z >>> 32) * bound) >>> 32);
+    }
+
+    private void observe(int g) {
+        int p = current[g];
+        int seat = g * numPlayers + p;
+        int o = g * obsSize;
+        int x = pos[seat] % width, y = pos[seat] / width;
+        int dx = goal[seat] % width - x, dy = goal[seat] / width - y;
+        obs[o++] = dx / (float) width;
+        obs[o++] = dy / (float) height;
+        obs[o++] = blocked[seat] / (float) GameConfig.MAX_BLOCKED_TURNS;
+        obs[o++] = turn[g] / (float) GameConfig.MAX_GAME_TURNS;
+
+        int stepX = dx == 0 ? -1 : cells[g * cellsPerGame + pos[seat] + Integer.signum(dx)] & 0xFF;
+        int stepY = dy == 0 ? -1 : cells[g * cellsPerGame + pos[seat] + Integer.signum(dy) * width] & 0xFF;
+        for (int c = 0; c < numColors; c++) obs[o++] = c == stepX ? 1 : 0;
+        for (int c = 0; c < numColors; c++) obs[o++] = c == stepY ? 1 : 0;
+        for (int c = 0; c < numColors; c++) obs[o++] = tokens[seat * numColors + c];
+
+        for (int k = 1; k < numPlayers; k++) {
+            int q = (p + k) % numPlayers;
+            int peer = g * numPlayers + q;
+            obs[o++] = betrayals[seat * numPlayers + q] / 2f;
+            obs[o++] = betrayals[peer * numPlayers + p] / 2f;
+            obs[o++] = out[peer] ? 1 : 0;
+        }
+    }
+
+    // Steps per second with a random policy
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 4096;
+        long steps = args.length > 1 ? Long.parseLong(args[1]) : 20_000_000L;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42L;
+
+        try (VectorEnv env = new VectorEnv(games, threads)) {
+            int[] actions = new int[games];
+            float[] obs = new float[games * env.obsSize()];
+            float[] rewards = new float[games];
+            boolean[] dones = new boolean[games];
+            SplittableRandom rand = new SplittableRandom(seed);
+
+            env.reset(seed, obs);
+            long start = System.nanoTime();
+            long calls = Math.max(1, steps / games);
+            double totalReward = 0;
+            for (long s = 0; s < calls; s++) {
+                for (int g = 0; g < games; g++) actions[g] = rand.nextInt(env.numActions());
+                env.step(actions, obs, rewards, dones);
+                for (float r : rewards) totalReward += r;
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.println(String.format("%d games x %d steps on %d threads in %.1f s: %.0f steps/s, %d episodes, mean reward %.3f",
+                    games, calls, threads, seconds, calls * games / seconds, env.episodes(), totalReward / env.episodes()));
+        }
+    }
+}
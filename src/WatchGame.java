@@ -0,0 +1,35 @@
+import java.util.SplittableRandom;
+
+// Plays one headless GameEngine game and shows it in the GUI. The engine
+// thread publishes a snapshot after every turn and only waits on the
+// TurnPacer, so the same game runs flat out (-Dgame.turnDelayMs=0 or the
+// "Max" speed) or at a watchable pace without code changes.
+// With -Dgame.journal=<dir> the game is also recorded for ReplayGame.
+// Usage: java -cp src WatchGame [seed]
+public class WatchGame {
+
+    public static void main(String[] args) throws InterruptedException {
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : new SplittableRandom().nextLong();
+        System.out.println("Game seed " + seed);
+
+        GameEngine engine = new GameEngine(new SplittableRandom(seed));
+        engine.setJournal(GameJournal.shared());
+        engine.setup(GameConfig.NUM_PLAYERS);
+
+        SnapshotExchange snapshots = new SnapshotExchange();
+        TurnPacer pacer = new TurnPacer(GameConfig.TURN_DELAY_MS);
+        snapshots.publish(0, engine.getPlayers());
+        new GameGUI(engine.getBoard(), snapshots, pacer);
+
+        while (engine.playTurn()) {
+            snapshots.publish(engine.getTurnCount(), engine.getPlayers());
+            pacer.pace();
+        }
+        snapshots.publish(engine.getTurnCount(), engine.getPlayers());
+
+        PlayerState winner = engine.getWinner();
+        System.out.println(winner != null
+                ? "🏁 " + winner.getName() + " reached the goal after " + engine.getTurnCount() + " turns"
+                : ">>> All players are blocked. Draw after " + engine.getTurnCount() + " turns");
+    }
+}
@@ -0,0 +1,100 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Matching and escrow rules of ExchangeBook
+class ExchangeBookTest {
+
+    private static final boolean SECURED_ONLY = false, ALLOW_UNSECURED = true;
+
+    @Test
+    void ordersTakeTheOldestAsk() {
+        ExchangeBook book = new ExchangeBook(4);
+        book.ask(2, 1);
+        book.ask(3, 1);
+        book.order(0, 1, -1, -1, "a");
+        book.order(1, 1, -1, -1, "b");
+        book.order(0, 1, -1, -1, "c");
+        book.match(SECURED_ONLY);
+        assertEquals(2, book.seller(0));
+        assertEquals(3, book.seller(1));
+        assertEquals(ExchangeBook.NO_FILL, book.seller(2));
+        assertEquals("c", book.tag(2));
+        assertEquals(0, book.asks(1));
+        assertEquals(2, book.getFills());
+    }
+
+    @Test
+    void ownAskIsHandedBackFirst() {
+        ExchangeBook book = new ExchangeBook(3);
+        book.ask(1, 0);
+        book.ask(2, 0);
+        book.ask(0, 0);
+        book.order(0, 0, -1, -1, null);
+        book.match(SECURED_ONLY);
+        assertEquals(0, book.seller(0));
+        assertEquals(0, book.getFills());
+        // The asks passed over keep their order
+        book.clearOrders();
+        book.order(0, 0, -1, -1, null);
+        book.order(0, 0, -1, -1, null);
+        book.match(SECURED_ONLY);
+        assertEquals(1, book.seller(0));
+        assertEquals(2, book.seller(1));
+    }
+
+    @Test
+    void unsecuredOrdersWaitForThePolicy() {
+        ExchangeBook book = new ExchangeBook(2);
+        book.ask(1, 2);
+        book.order(0, 2, 3, -1, null);
+        assertTrue(book.unsecured(0));
+        book.match(SECURED_ONLY);
+        assertEquals(ExchangeBook.NO_FILL, book.seller(0));
+        assertEquals(1, book.asks(2));
+    }
+
+    @Test
+    void securedOrdersGoFirst() {
+        ExchangeBook book = new ExchangeBook(3);
+        book.ask(2, 1);
+        book.order(0, 1, 3, -1, null);
+        book.order(1, 1, 3, 3, null);
+        book.match(ALLOW_UNSECURED);
+        assertEquals(ExchangeBook.NO_FILL, book.seller(0));
+        assertEquals(2, book.seller(1));
+        assertEquals(0, book.getUnsecuredFills());
+    }
+
+    @Test
+    void sellersStopFillingTheirBetrayers() {
+        ExchangeBook book = new ExchangeBook(2);
+        for (int i = 0; i < ExchangeBook.MAX_BETRAYALS; i++) {
+            book.ask(1, 0);
+            book.order(0, 0, 2, -1, null);
+            book.match(ALLOW_UNSECURED);
+            assertEquals(1, book.seller(0));
+            book.clearOrders();
+        }
+        assertEquals(ExchangeBook.MAX_BETRAYALS, book.getBetrayals(1, 0));
+        book.ask(1, 0);
+        book.order(0, 0, -1, -1, null);
+        book.match(ALLOW_UNSECURED);
+        assertEquals(ExchangeBook.NO_FILL, book.seller(0));
+        assertEquals(1, book.asks(0));
+    }
+
+    @Test
+    void bookGrowsPastItsSeatsAndAsks() {
+        ExchangeBook book = new ExchangeBook(1);
+        for (int s = 0; s < 40; s++) book.ask(s, 3);
+        for (int s = 0; s < 40; s++) book.order((s + 1) % 40 + 40, 3, -1, -1, s);
+        book.match(SECURED_ONLY);
+        assertEquals(40, book.orders());
+        for (int i = 0; i < 40; i++) {
+            assertEquals(i, book.seller(i));
+            assertEquals(i, book.tag(i));
+        }
+        assertEquals(0, book.asks(3));
+    }
+}
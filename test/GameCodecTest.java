@@ -0,0 +1,86 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Binary round-trips of every GameMessage, and the text forms the host relies on
+class GameCodecTest {
+
+    private static GameMessage roundTrip(GameMessage m) {
+        byte[] bytes = GameCodec.encode(m);
+        assertEquals(GameCodec.VERSION, bytes[0]);
+        return GameCodec.decode(bytes);
+    }
+
+    private static TokenBag tokens(int... colors) {
+        TokenBag bag = new TokenBag();
+        for (int c : colors) bag.add(c);
+        return bag;
+    }
+
+    @Test
+    void recordsRoundTrip() {
+        Map<String, Integer> trades = new LinkedHashMap<>();
+        trades.put("Player2", 3);
+        trades.put("Player5", 1);
+        List<GameMessage> messages = List.of(
+                new GameMessage.TurnRequest(2),
+                new GameMessage.TurnRequest(1, 4, 7),
+                GameMessage.TurnIntent.move(GameMessage.TurnIntent.NORTH),
+                GameMessage.TurnIntent.trade(3, 1, -1),
+                GameMessage.TurnIntent.trade(0, 2, 3),
+                GameMessage.TurnIntent.pass(),
+                new GameMessage.TurnDelta(-1, 0, 2, -1, 0, false),
+                new GameMessage.TurnDelta(0, 0, -1, -1, 3, true),
+                new GameMessage.TradeOffer(2, 0, 1),
+                new GameMessage.Proposal(1, -1),
+                new GameMessage.ProposalReply(3),
+                new GameMessage.Payment(-1),
+                new GameMessage.GameOver(-1),
+                new GameMessage.GameOver(3),
+                new GameMessage.TradeReport(trades),
+                new GameMessage.Migrate("Players-2"),
+                new GameMessage.Order(5, 1, 2, -1),
+                new GameMessage.Fill(-1, -1, -1),
+                new GameMessage.Fill(4, 2, 0),
+                new GameMessage.Sale(1, 3, 2));
+        for (GameMessage m : messages) assertEquals(m, roundTrip(m));
+    }
+
+    @Test
+    void tokenBagsRoundTrip() {
+        GameMessage.Init init = new GameMessage.Init(1, 2, 3, 4, tokens(0, 0, 3), List.of("Player1", "Player2"));
+        GameMessage.Init back = (GameMessage.Init) roundTrip(init);
+        assertEquals(List.of(1, 2, 3, 4), List.of(back.startX(), back.startY(), back.goalX(), back.goalY()));
+        assertEquals(init.tokens().toList(), back.tokens().toList());
+        assertEquals(init.players(), back.players());
+
+        GameMessage.Ask ask = new GameMessage.Ask(7, tokens(1, 2, 2));
+        GameMessage.Ask askBack = (GameMessage.Ask) roundTrip(ask);
+        assertEquals(7, askBack.seat());
+        assertEquals(ask.tokens().toList(), askBack.tokens().toList());
+    }
+
+    @Test
+    void unknownDirectionDecodesAsNoStep() {
+        byte[] bytes = GameCodec.encode(GameMessage.TurnIntent.move(GameMessage.TurnIntent.EAST));
+        bytes[bytes.length - 1] = 9;
+        assertEquals(-1, ((GameMessage.TurnIntent) GameCodec.decode(bytes)).direction());
+    }
+
+    @Test
+    void otherVersionsAreRefused() {
+        byte[] bytes = GameCodec.encode(new GameMessage.GameOver(1));
+        bytes[0] = GameCodec.VERSION - 1;
+        assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(bytes));
+    }
+
+    @Test
+    void moveWithoutDirectionIsWrittenAsPass() {
+        assertEquals("MOVE;N", GameCodec.toLegacyText(GameMessage.TurnIntent.move(GameMessage.TurnIntent.NORTH)));
+        assertEquals("PASS", GameCodec.toLegacyText(GameMessage.TurnIntent.move(-1)));
+    }
+}
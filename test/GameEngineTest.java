@@ -0,0 +1,110 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Rules of GameEngine on small seeded games
+class GameEngineTest {
+
+    private static GameEngine game(long seed, int players, int tokens) {
+        GameEngine engine = new GameEngine(new SplittableRandom(seed), 8, 8);
+        engine.setup(players, tokens);
+        return engine;
+    }
+
+    @Test
+    void setupDealsDistinctStartsAndTokens() {
+        GameEngine engine = game(1, 6, 5);
+        Set<Integer> starts = new HashSet<>();
+        for (int i = 0; i < engine.getPlayers().size(); i++) {
+            PlayerState p = engine.getPlayers().get(i);
+            int start = engine.getBoard().index(p.getX(), p.getY());
+            assertTrue(starts.add(start), "two players start on the same cell");
+            assertFalse(p.getX() == p.getGoalX() && p.getY() == p.getGoalY(), "goal on the start cell");
+            assertEquals(5, p.getTokens().size());
+            assertTrue(engine.getPositions().isOccupied(start));
+        }
+    }
+
+    @Test
+    void setupRefusesMorePlayersThanCells() {
+        GameEngine engine = new GameEngine(new SplittableRandom(1), 2, 2);
+        assertThrows(IllegalArgumentException.class, () -> engine.setup(5, 1));
+    }
+
+    @Test
+    void sameSeedPlaysTheSameGame() {
+        GameEngine a = game(42, 4, 3), b = game(42, 4, 3);
+        a.run();
+        b.run();
+        assertEquals(a.getTurnCount(), b.getTurnCount());
+        assertEquals(a.getWinnerIndex(), b.getWinnerIndex());
+        assertEquals(a.getTrades(), b.getTrades());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(a.getPlayers().get(i).getX(), b.getPlayers().get(i).getX());
+            assertEquals(a.getPlayers().get(i).getY(), b.getPlayers().get(i).getY());
+        }
+    }
+
+    @Test
+    void moveCostsOneTokenOfTheCellColor() {
+        // One player with a token of every color never trades and never blocks
+        GameEngine engine = game(7, 1, 200);
+        PlayerState p = engine.getPlayers().get(0);
+        int distance = Math.abs(p.getGoalX() - p.getX()) + Math.abs(p.getGoalY() - p.getY());
+        while (!engine.isGameOver()) {
+            int[] before = new int[GameConfig.NUM_COLORS];
+            for (int c = 0; c < before.length; c++) before[c] = p.getTokens().count(c);
+            int x = p.getX(), y = p.getY();
+            engine.playTurn();
+            assertEquals(1, Math.abs(p.getX() - x) + Math.abs(p.getY() - y), "not a unit step");
+            int paid = engine.getBoard().colorAt(engine.getBoard().index(p.getX(), p.getY()));
+            for (int c = 0; c < before.length; c++) assertEquals(before[c] - (c == paid ? 1 : 0), p.getTokens().count(c));
+            assertEquals(0, p.getBlockedTurns());
+        }
+        assertSame(p, engine.getWinner());
+        assertEquals(distance, engine.getTurnCount());
+    }
+
+    @Test
+    void playerWithoutTokensIsOutAfterMaxBlockedTurns() {
+        GameEngine engine = game(3, 1, 0);
+        engine.run();
+        PlayerState p = engine.getPlayers().get(0);
+        assertTrue(engine.isGameOver());
+        assertNull(engine.getWinner());
+        assertTrue(engine.getTurnCount() <= GameConfig.MAX_BLOCKED_TURNS);
+        assertTrue(p.isDisqualified() || engine.isStalled());
+    }
+
+    @Test
+    void tradesMoveTokensWithoutCreatingAny() {
+        // Every token either stays in a hand or pays for one move
+        for (long seed = 0; seed < 50; seed++) {
+            GameEngine engine = game(seed, 4, 3);
+            List<PlayerState> players = engine.getPlayers();
+            int total = tokens(players);
+            int moves = 0;
+            while (!engine.isGameOver()) {
+                int[] cells = new int[players.size()];
+                for (int i = 0; i < cells.length; i++) cells[i] = engine.getBoard().index(players.get(i).getX(), players.get(i).getY());
+                engine.playTurn();
+                for (int i = 0; i < cells.length; i++) {
+                    if (cells[i] != engine.getBoard().index(players.get(i).getX(), players.get(i).getY())) moves++;
+                }
+            }
+            assertEquals(total, tokens(players) + moves, "seed " + seed);
+            assertTrue(engine.getTurnCount() <= GameConfig.MAX_GAME_TURNS);
+        }
+    }
+
+    private static int tokens(List<PlayerState> players) {
+        int n = 0;
+        for (PlayerState p : players) n += p.getTokens().size();
+        return n;
+    }
+}
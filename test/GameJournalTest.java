@@ -0,0 +1,92 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Games written by GameJournal come back the same from GameReplay
+class GameJournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replayRebuildsEveryTurn() throws IOException {
+        int games = 5;
+        // Player positions and token counts after each turn, per game
+        List<List<int[]>> states = new ArrayList<>();
+        List<GameEngine> engines = new ArrayList<>();
+        try (GameJournal journal = new GameJournal(dir)) {
+            for (int g = 0; g < games; g++) {
+                GameEngine engine = new GameEngine(new SplittableRandom(100 + g), 10, 10);
+                engine.setJournal(journal);
+                engine.setup(4, 3);
+                List<int[]> turns = new ArrayList<>();
+                turns.add(state(engine.getPlayers()));
+                while (engine.playTurn()) turns.add(state(engine.getPlayers()));
+                turns.add(state(engine.getPlayers()));
+                states.add(turns);
+                engines.add(engine);
+            }
+        }
+
+        GameReplay replay = new GameReplay(dir);
+        assertEquals(games, replay.games());
+        for (int g = 0; g < games; g++) {
+            GameEngine engine = engines.get(g);
+            List<int[]> turns = states.get(g);
+            for (int t = 0; t < turns.size() - 1; t++) {
+                GameReplay.Cursor cursor = replay.seek(g, t);
+                assertArrayEquals(turns.get(t), state(cursor.getPlayers()), "game " + g + " turn " + t);
+            }
+            GameReplay.Cursor end = replay.seek(g, Integer.MAX_VALUE);
+            assertTrue(end.isEnded());
+            assertEquals(engine.getWinnerIndex(), end.getWinner());
+            assertArrayEquals(turns.get(turns.size() - 1), state(end.getPlayers()));
+            for (int i = 0; i < engine.getBoard().getWidth() * engine.getBoard().getHeight(); i++) {
+                assertEquals(engine.getBoard().colorAt(i), end.getBoard().colorAt(i));
+            }
+        }
+    }
+
+    @Test
+    void colorFieldsAreUnsigned() throws IOException {
+        try (GameJournal journal = new GameJournal(dir)) {
+            GameEngine engine = new GameEngine(new SplittableRandom(1), 4, 4);
+            engine.setJournal(journal);
+            engine.setup(2, 1);
+            journal.proposal(0, 200, -1);
+            journal.proposal(1, 130, 253);
+            journal.accept(0, 1, 128, -1);
+        }
+        GameReplay replay = new GameReplay(dir);
+        List<int[]> fields = new ArrayList<>();
+        for (long r = 0; r < replay.records(); r++) {
+            if (replay.type(r) == GameJournal.PROPOSAL || replay.type(r) == GameJournal.ACCEPT) {
+                fields.add(new int[]{replay.c1(r), replay.c2(r)});
+            }
+        }
+        assertEquals(3, fields.size());
+        assertArrayEquals(new int[]{200, -1}, fields.get(0));
+        assertArrayEquals(new int[]{130, 253}, fields.get(1));
+        assertArrayEquals(new int[]{128, -1}, fields.get(2));
+    }
+
+    // x, y, blocked turns and token count per player
+    private static int[] state(List<PlayerState> players) {
+        int[] s = new int[players.size() * 4];
+        for (int i = 0; i < players.size(); i++) {
+            PlayerState p = players.get(i);
+            s[4 * i] = p.getX();
+            s[4 * i + 1] = p.getY();
+            s[4 * i + 2] = p.getBlockedTurns();
+            s[4 * i + 3] = p.getTokens().size();
+        }
+        return s;
+    }
+}
@@ -0,0 +1,68 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Zobrist hashing of SearchStrategy's trade states: distinct states must not share a key
+class SearchStrategyTest {
+
+    private static final int C = GameConfig.NUM_COLORS;
+
+    // [dist, blocked, trusted, onceBetrayed, need, counts...], as SearchStrategy lays it out
+    private static int[] state(int dist, int blocked, int trusted, int once, int need, int... counts) {
+        int[] s = new int[5 + C];
+        s[0] = dist;
+        s[1] = blocked;
+        s[2] = trusted;
+        s[3] = once;
+        s[4] = need;
+        System.arraycopy(counts, 0, s, 5, counts.length);
+        return s;
+    }
+
+    @Test
+    void equalCountsOfTwoColorsDoNotCancel() {
+        assertNotEquals(SearchStrategy.hash(state(3, 0, 2, 0, 1, 2, 2)), SearchStrategy.hash(state(3, 0, 2, 0, 1, 0, 0)));
+    }
+
+    @Test
+    void trustLevelsHashApart() {
+        assertNotEquals(SearchStrategy.hash(state(3, 0, 1, 0, 0)), SearchStrategy.hash(state(3, 0, 0, 1, 0)));
+    }
+
+    @Test
+    void blockedTurnsAndNeedHashApart() {
+        assertNotEquals(SearchStrategy.hash(state(3, 1, 0, 0, 0)), SearchStrategy.hash(state(3, 0, 0, 0, 1)));
+    }
+
+    @Test
+    void smallStatesAllHashApart() {
+        Set<Long> hashes = new HashSet<>();
+        int states = 0;
+        int[] s = new int[5 + C];
+        for (int dist = 0; dist < 4; dist++) {
+            for (int blocked = 0; blocked < GameConfig.MAX_BLOCKED_TURNS; blocked++) {
+                for (int trusted = 0; trusted < 3; trusted++) {
+                    for (int once = 0; once < 3; once++) {
+                        for (int need = 0; need < C; need++) {
+                            int combos = (int) Math.pow(3, C);
+                            for (int k = 0; k < combos; k++) {
+                                s[0] = dist;
+                                s[1] = blocked;
+                                s[2] = trusted;
+                                s[3] = once;
+                                s[4] = need;
+                                for (int c = 0, rest = k; c < C; c++, rest /= 3) s[5 + c] = rest % 3;
+                                hashes.add(SearchStrategy.hash(s));
+                                states++;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        assertEquals(states, hashes.size());
+    }
+}